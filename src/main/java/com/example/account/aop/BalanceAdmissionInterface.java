@@ -0,0 +1,8 @@
+package com.example.account.aop;
+
+//락을 잡기 전에 스냅샷으로 미리 걸러볼 수 있는 잔액 차감 요청
+public interface BalanceAdmissionInterface extends AccountLockIdInterface {
+    Long getUserId();
+
+    Long getAmount();
+}
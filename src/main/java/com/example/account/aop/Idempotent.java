@@ -0,0 +1,11 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+//첫번째 인자는 요청, 두번째 인자는 Idempotency-Key 헤더
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Idempotent {
+}
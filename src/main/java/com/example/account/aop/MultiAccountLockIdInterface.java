@@ -0,0 +1,8 @@
+package com.example.account.aop;
+
+import java.util.Collection;
+
+public interface MultiAccountLockIdInterface {
+    //요청이 건드리는 모든 계좌 -> 정렬된 순서로 한번에 락을 잡음
+    Collection<String> getLockAccountNumbers();
+}
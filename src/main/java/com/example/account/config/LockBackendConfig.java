@@ -0,0 +1,35 @@
+package com.example.account.config;
+
+import com.example.account.service.HybridLockBackend;
+import com.example.account.service.LocalLockBackend;
+import com.example.account.service.LockBackend;
+import com.example.account.service.RedisLockBackend;
+import com.example.account.type.LockBackendType;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LockBackendConfig {
+    @Value("${account.lock.backend:REDIS}")
+    private LockBackendType lockBackendType;
+
+    @Value("${account.lock.local-stripes:1024}")
+    private int localStripes;
+
+    //설정값에 따라 LockService가 사용할 락 백엔드를 하나만 만들어준다
+    @Bean
+    public LockBackend lockBackend(RedissonClient redissonClient) {
+        switch (lockBackendType) {
+            case LOCAL:
+                return new LocalLockBackend(localStripes);
+            case HYBRID:
+                return new HybridLockBackend(
+                        new LocalLockBackend(localStripes),
+                        new RedisLockBackend(redissonClient));
+            default:
+                return new RedisLockBackend(redissonClient);
+        }
+    }
+}
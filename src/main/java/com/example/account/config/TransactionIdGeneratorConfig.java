@@ -0,0 +1,32 @@
+package com.example.account.config;
+
+import com.example.account.service.RedisNodeIdLease;
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.UuidTransactionIdGenerator;
+import com.example.account.type.TransactionIdGeneratorType;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TransactionIdGeneratorConfig {
+    @Value("${account.transaction-id.generator:SNOWFLAKE}")
+    private TransactionIdGeneratorType generatorType;
+
+    @Value("${account.transaction-id.node-lease-ttl-ms:30000}")
+    private long nodeLeaseTtlMs;
+
+    //SNOWFLAKE 는 시작할때 Redis 에서 노드 id 를 빌려오고, 종료시(close) 반납
+    @Bean
+    public TransactionIdGenerator transactionIdGenerator(RedissonClient redissonClient) {
+        switch (generatorType) {
+            case UUID:
+                return new UuidTransactionIdGenerator();
+            default:
+                return new SnowflakeTransactionIdGenerator(new RedisNodeIdLease(
+                        redissonClient, SnowflakeTransactionIdGenerator.MAX_NODE_ID, nodeLeaseTtlMs));
+        }
+    }
+}
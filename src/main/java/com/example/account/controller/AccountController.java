@@ -1,21 +1,24 @@
 package com.example.account.controller;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.MakeHotAccount;
 import com.example.account.service.AccountService;
+import com.example.account.service.HotAccountService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final HotAccountService hotAccountService;
 
     @PostMapping("/account")
     public CreateAccount.Response createAccount(
@@ -46,16 +49,26 @@ public class AccountController {
     }
 
 
+    //쓰기가 몰리는 계좌의 잔액을 여러 칸으로 나눠서 계좌 락 하나에 묶이지 않도록
+    @PostMapping("/account/hot")
+    @AccountLock
+    public MakeHotAccount.Response makeHotAccount(
+            @RequestBody @Valid MakeHotAccount.Request request
+    ) {
+        return MakeHotAccount.Response.from(hotAccountService.makeHot(
+                        request.getAccountNumber(),
+                        request.getSlots()
+                )
+        );
+    }
+
+
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId
     ) {
-        return accountService.getAccountsByUserId(userId)
-                .stream().map(accountDto -> AccountInfo.builder()
-                        .accountNumber(accountDto.getAccountNumber())
-                        .balance(accountDto.getBalance())
-                        .build())
-                .collect(Collectors.toList()); //이 코드는 성능엔 좋지않으나 성능맞추려다 유지보수나 보안을 놓침. 성능이슈 있을때 신경쓰는것이좋다
+        //서비스가 AccountInfo 로 바로 읽어서 캐시해둔 목록을 그대로 응답
+        return accountService.getAccountsByUserId(userId);
     }
 
 
@@ -0,0 +1,83 @@
+package com.example.account.controller;
+
+import com.example.account.dto.BulkBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.BulkBalanceService;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 잔액 사용/취소 여러건을 한 요청으로 처리 (정산 배치용)
+ * 1. JSON 배열 -> 모든 처리가 끝난 뒤 요청 순서대로 결과 배열
+ * 2. NDJSON -> 계좌 묶음이 끝나는 대로 결과를 한 줄씩 내려줌
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class BulkTransactionController {
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final BulkBalanceService bulkBalanceService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/transaction/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BulkBalance.Result> bulk(@RequestBody List<BulkBalance.Item> items) {
+        List<BulkBalance.Result> results = new ArrayList<>(items.size());
+        //sink 는 서비스에서 한 쓰레드씩 호출
+        bulkBalanceService.process(items, results::add);
+        results.sort(Comparator.comparingInt(BulkBalance.Result::getIndex));
+        return results;
+    }
+
+    @PostMapping(value = "/transaction/bulk", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> bulkStream(HttpServletRequest request) throws IOException {
+        List<BulkBalance.Item> items = readItems(request.getInputStream());
+
+        StreamingResponseBody body = outputStream -> bulkBalanceService.process(items, result -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(result));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
+    }
+
+    private List<BulkBalance.Item> readItems(InputStream inputStream) throws IOException {
+        List<BulkBalance.Item> items = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                items.add(objectMapper.readValue(line, BulkBalance.Item.class));
+            } catch (JsonProcessingException e) {
+                log.error("Invalid bulk item line.", e);
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+        }
+        return items;
+    }
+}
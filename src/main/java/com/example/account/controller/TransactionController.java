@@ -1,15 +1,27 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.Idempotent;
+import com.example.account.dto.AuthorizeBalance;
+import com.example.account.dto.BatchTransfer;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.CaptureBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.Transfer;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.RedisBalanceService;
 import com.example.account.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+
 import javax.validation.Valid;
 
 
@@ -18,33 +30,36 @@ import javax.validation.Valid;
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 잔액 홀드(authorize) / 홀드 사용 확정(capture)
+ * 5. 계좌 간 이체 (단건 / 여러건)
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final RedisBalanceService redisBalanceService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
 
     @PostMapping("/transaction/use")
+    @Idempotent
     @AccountLock
     public UseBalance.Response useBalance(
-            @Valid @RequestBody UseBalance.Request request
+            @Valid @RequestBody UseBalance.Request request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         //  1회성 변수는 가급정 생성하지 않도록 신경쓴다
 // TransactionDto transactionDto = transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount());
         //fail일때 저장해주어야함. 지금은 성공만 가정함 -> try catch로 적용해주기
 
         try {
-            return UseBalance.Response.from(
-                    transactionService.useBalance(request.getUserId(),
-                            request.getAccountNumber(), request.getAmount())
-            );
+            return UseBalance.Response.from(useBalance(request));
         } catch (AccountException e) {
             //비지니스로직에서 의도적인 에러가 발생하였을때 여기서는 UseBalance로직에서 에러발생 가능성
             log.error("Failed to use balance.");
 
-            //아래 코드에서 실패내용을 저장해줌
-            transactionService.saveFailedUseTransaction(
+            //실패내용은 큐에 넣고 백그라운드에서 저장 -> 락을 잡고있는 동안 DB 를 기다리지 않음
+            failedTransactionRecorder.record(USE,
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -54,25 +69,24 @@ public class TransactionController {
     }
 
     @PostMapping("/transaction/cancel")
+    @Idempotent
     @AccountLock
     public CancelBalance.Response cancelBalance(
-            @Valid @RequestBody CancelBalance.Request request
+            @Valid @RequestBody CancelBalance.Request request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         //  1회성 변수는 가급정 생성하지 않도록 신경쓴다
 // TransactionDto transactionDto = transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount());
         //fail일때 저장해주어야함. 지금은 성공만 가정함 -> try catch로 적용해주기
 
         try {
-            return CancelBalance.Response.from(
-                    transactionService.cancelBalance(request.getTransactionId(),
-                            request.getAccountNumber(), request.getAmount())
-            );
+            return CancelBalance.Response.from(cancelBalance(request));
         } catch (AccountException e) {
             //비지니스로직에서 의도적인 에러가 발생하였을때 여기서는 UseBalance로직에서 에러발생 가능성
             log.error("Failed to use balance.");
 
-            //아래 코드에서 실패내용을 저장해줌
-            transactionService.saveFailedCancelTransaction(
+            //실패내용은 큐에 넣고 백그라운드에서 저장 -> 락을 잡고있는 동안 DB 를 기다리지 않음
+            failedTransactionRecorder.record(CANCEL,
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -81,13 +95,91 @@ public class TransactionController {
         }
     }
 
+    //홀드만 걸고 바로 락을 푼다. 실패해도 거래가 아니므로 F 거래는 남기지 않음
+    @PostMapping("/transaction/authorize")
+    @Idempotent
+    @AccountLock
+    public AuthorizeBalance.Response authorizeBalance(
+            @Valid @RequestBody AuthorizeBalance.Request request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        return AuthorizeBalance.Response.from(transactionService.authorizeBalance(
+                request.getUserId(), request.getAccountNumber(), request.getAmount()));
+    }
+
+    //계좌 락은 같은 계좌 capture 를 모아서 서비스에서 한번만 잡는다
+    @PostMapping("/transaction/capture")
+    @Idempotent
+    public CaptureBalance.Response captureBalance(
+            @Valid @RequestBody CaptureBalance.Request request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        return CaptureBalance.Response.from(request.getHoldId(),
+                transactionService.captureBalance(request.getAccountNumber(), request.getHoldId()));
+    }
+
+    //출금/입금 계좌 락을 계좌번호 순서로 한번에 잡음
+    @PostMapping("/transaction/transfer")
+    @Idempotent
+    @AccountLock
+    public Transfer.Response transfer(
+            @Valid @RequestBody Transfer.Request request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        try {
+            return Transfer.Response.from(transactionService.transfer(request.getUserId(),
+                    request.getFromAccountNumber(), request.getToAccountNumber(), request.getAmount()));
+        } catch (AccountException e) {
+            log.error("Failed to transfer balance.");
+
+            failedTransactionRecorder.record(TRANSFER_OUT,
+                    request.getFromAccountNumber(),
+                    request.getAmount()
+            );
+
+            throw e;
+        }
+    }
+
+    //모든 이체의 계좌 락을 한번에 잡고 하나의 DB 트랜잭션으로 처리
+    @PostMapping("/transaction/transfer/batch")
+    @Idempotent
+    @AccountLock
+    public BatchTransfer.Response transferAll(
+            @Valid @RequestBody BatchTransfer.Request request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        return BatchTransfer.Response.from(transactionService.transferAll(request.getTransfers()));
+    }
+
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(
             @PathVariable String transactionId) {
         return QueryTransactionResponse.from(
-                transactionService.queryTransaction(transactionId)
+                redisBalanceService.isEnabled()
+                        ? redisBalanceService.queryTransaction(transactionId)
+                        : transactionService.queryTransaction(transactionId)
         );
     }
 
+    //REDIS 모드는 DB 트랜잭션 없이 처리
+    private TransactionDto useBalance(UseBalance.Request request) {
+        if (redisBalanceService.isEnabled()) {
+            return redisBalanceService.useBalance(request.getUserId(),
+                    request.getAccountNumber(), request.getAmount());
+        }
+        return transactionService.useBalance(request.getUserId(),
+                request.getAccountNumber(), request.getAmount());
+    }
+
+    private TransactionDto cancelBalance(CancelBalance.Request request) {
+        if (redisBalanceService.isEnabled()) {
+            return redisBalanceService.cancelBalance(request.getTransactionId(),
+                    request.getAccountNumber(), request.getAmount());
+        }
+        return transactionService.cancelBalance(request.getTransactionId(),
+                request.getAccountNumber(), request.getAmount());
+    }
+
 
 }
@@ -4,6 +4,8 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,14 +19,24 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+//계좌번호 / 소유주로 찾는 조회가 대부분 -> 전체 스캔이 되지 않도록
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_account_account_number", columnNames = "account_number"),
+        indexes = @Index(name = "idx_account_account_user_id", columnList = "account_user_id"))
 @EntityListeners(AuditingEntityListener.class)
 public class Account {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @GenericGenerator(name = "account_seq", strategy = "com.example.account.config.PooledSequenceGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "account_seq"),
+                    @Parameter(name = "initial_value", value = "1"),
+                    @Parameter(name = "increment_size", value = "50")
+            })
     private Long id;
 
     //accountUser ? db 시스템에 기본 user 테이블과 충돌할수있을수있어... 안겹치게 네이밍
-    @ManyToOne
+    //소유주 id 만 필요한 경우가 대부분 -> 프록시의 getId() 는 조회하지 않음
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
     private String accountNumber;
 
@@ -34,6 +46,14 @@ public class Account {
 
     private Long balance;
 
+    //hot 계좌는 잔액을 SubBalance 칸들에 나눠 담는다 (계좌 잔액 = balance + 칸 합계)
+    private boolean hot;
+    private Integer subBalanceSlots;
+
+    //낙관적 락(OPTIMISTIC 모드) 충돌 감지용
+    @Version
+    private Long version;
+
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
@@ -45,16 +65,25 @@ public class Account {
 
 
     public void useBalance(Long amount) {
+        balance = balanceAfterUse(amount);
+    }
+
+    public void cancelBalance(Long amount) {
+        balance = balanceAfterCancel(amount);
+    }
+
+    //엔티티는 바꾸지 않고 결과 잔액만 계산 (그룹 커밋에서 사용)
+    public Long balanceAfterUse(Long amount) {
         if (amount > balance) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
-        balance -= amount;
+        return balance - amount;
     }
 
-    public void cancelBalance(Long amount) {
+    public Long balanceAfterCancel(Long amount) {
         if (amount < 0) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
         }
-        balance += amount;
+        return balance + amount;
     }
 }
@@ -1,14 +1,14 @@
 package com.example.account.domain;
 
+import com.example.account.service.AccountUserCacheListener;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import javax.persistence.Entity;
-import javax.persistence.EntityListeners;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Getter
@@ -17,14 +17,25 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, AccountUserCacheListener.class})
 public class AccountUser {
+    //data.sql 로 넣은 사용자 id 와 겹치지 않도록 1000 부터
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_user_seq")
+    @GenericGenerator(name = "account_user_seq", strategy = "com.example.account.config.PooledSequenceGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "account_user_seq"),
+                    @Parameter(name = "initial_value", value = "1000"),
+                    @Parameter(name = "increment_size", value = "50")
+            })
     private Long id;
 
     private String name;
 
+    //해지되지 않은 계좌 수 (계좌 생성/해지에서 조건부 UPDATE 로만 바꿈) -> 생성할때 COUNT 쿼리 없이 제한 확인
+    @Column(nullable = false)
+    private int accountCount;
+
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
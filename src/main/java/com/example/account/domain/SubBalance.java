@@ -0,0 +1,50 @@
+package com.example.account.domain;
+
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+//hot 계좌의 잔액을 나눠 담는 칸 -> 칸마다 락과 row 가 따로라서 같은 계좌 요청도 동시에 처리 가능
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+@EntityListeners(AuditingEntityListener.class)
+public class SubBalance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sub_balance_seq")
+    @GenericGenerator(name = "sub_balance_seq", strategy = "com.example.account.config.PooledSequenceGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "sub_balance_seq"),
+                    @Parameter(name = "initial_value", value = "1"),
+                    @Parameter(name = "increment_size", value = "50")
+            })
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+    private int slot;
+
+    private Long balance;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
+    //가진 만큼만 꺼내고 꺼낸 금액을 리턴
+    public long take(long amount) {
+        long taken = Math.min(balance, amount);
+        balance -= taken;
+        return taken;
+    }
+}
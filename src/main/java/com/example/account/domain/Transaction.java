@@ -5,6 +5,8 @@ import com.example.account.type.AccountStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -18,10 +20,19 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+//거래 id 조회(취소/조회) + 계좌별 기간 조회(원장)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_transaction_transaction_id", columnNames = "transaction_id"),
+        indexes = @Index(name = "idx_transaction_account_id_transacted_at", columnList = "account_id, transacted_at"))
 @EntityListeners(AuditingEntityListener.class)
 public class Transaction {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @GenericGenerator(name = "transaction_seq", strategy = "com.example.account.config.PooledSequenceGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "transaction_seq"),
+                    @Parameter(name = "initial_value", value = "1"),
+                    @Parameter(name = "increment_size", value = "50")
+            })
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -29,14 +40,19 @@ public class Transaction {
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    //조회 응답은 projection 쿼리로 (TransactionRepository.findDtoByTransactionId)
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
     private Long amount;
+    //hot 계좌 거래는 칸 합계를 락 없이 읽은 값 -> 동시 거래가 있으면 근사값
     private Long balanceSnapshot;
 
     private String transactionId;
     private LocalDateTime transactedAt;
 
+    //이체로 생긴 출금/입금 거래 쌍이 같은 값을 가짐 (이체가 아니면 null)
+    private String transferId;
+
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
@@ -3,12 +3,11 @@ package com.example.account.dto;
 
 import lombok.*;
 
+//계좌 목록 캐시에 담겨 여러 요청이 같이 보므로 바꿀 수 없게 (setter 없음)
 @Getter
-@Setter
 @AllArgsConstructor
-@NoArgsConstructor
 @Builder
 public class AccountInfo {//클라이언트에게 제공할 정보 ... 나중에 복잡한 상황이 생김.. 결국 용도에 따른 Dto가 필요함
-    private String accountNumber;
-    private Long balance;
+    private final String accountNumber;
+    private final Long balance;
 }
@@ -0,0 +1,50 @@
+package com.example.account.dto;
+
+
+import com.example.account.aop.BalanceAdmissionInterface;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+public class AuthorizeBalance {
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements BalanceAdmissionInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String accountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private Long amount;
+        private LocalDateTime expiresAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .amount(holdDto.getAmount())
+                    .expiresAt(holdDto.getExpiresAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.dto;
+
+
+import com.example.account.aop.MultiAccountLockIdInterface;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 여러 이체를 하나의 DB 트랜잭션으로 처리 (하나라도 실패하면 전부 취소)
+ */
+public class BatchTransfer {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request implements MultiAccountLockIdInterface {
+        @Valid
+        @NotEmpty
+        @Size(max = 100)
+        private List<Transfer.Request> transfers;
+
+        @JsonIgnore
+        @Override
+        public Collection<String> getLockAccountNumbers() {
+            return transfers.stream()
+                    .flatMap(transfer -> transfer.getLockAccountNumbers().stream())
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Response {
+        private List<Transfer.Response> transfers;
+
+        public static Response from(List<TransferDto> transferDtos) {
+            return new Response(transferDtos.stream()
+                    .map(Transfer.Response::from)
+                    .collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.account.dto;
+
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+/**
+ * 여러 사용/취소 요청을 한번에 처리
+ * 요청 한 건은 type 과 기존 요청(use 또는 cancel), 결과 한 건은 요청 순번과 기존 응답(또는 에러)
+ */
+public class BulkBalance {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        @NotNull
+        private TransactionType type;
+
+        @Valid
+        private UseBalance.Request use;
+
+        @Valid
+        private CancelBalance.Request cancel;
+
+        @JsonIgnore
+        public String getAccountNumber() {
+            return type == TransactionType.USE ? use.getAccountNumber() : cancel.getAccountNumber();
+        }
+
+        @JsonIgnore
+        public Long getAmount() {
+            return type == TransactionType.USE ? use.getAmount() : cancel.getAmount();
+        }
+
+        //type 에 맞는 요청이 있어야 함
+        @JsonIgnore
+        public boolean isComplete() {
+            return (type == TransactionType.USE && use != null)
+                    || (type == TransactionType.CANCEL && cancel != null);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+        private int index;
+        private TransactionType type;
+        private UseBalance.Response use;
+        private CancelBalance.Response cancel;
+        private ErrorCode errorCode;
+        private String errorMessage;
+
+        public static Result success(TransactionType type, TransactionDto transactionDto) {
+            return Result.builder()
+                    .type(type)
+                    .use(type == TransactionType.USE ? UseBalance.Response.from(transactionDto) : null)
+                    .cancel(type == TransactionType.CANCEL ? CancelBalance.Response.from(transactionDto) : null)
+                    .build();
+        }
+
+        public static Result failure(TransactionType type, ErrorCode errorCode) {
+            return Result.builder()
+                    .type(type)
+                    .errorCode(errorCode)
+                    .errorMessage(errorCode.getDescription())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldDto {
+    private String accountNumber;
+    private String holdId;
+    private Long amount;
+    private LocalDateTime expiresAt;
+}
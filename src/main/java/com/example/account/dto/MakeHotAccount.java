@@ -0,0 +1,45 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import lombok.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+public class MakeHotAccount {
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotBlank
+        @Size(min=10, max=10)
+        private String accountNumber;
+
+        //잔액을 나눠 담을 칸 수
+        @NotNull
+        @Min(2)
+        @Max(64)
+        private Integer slots;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private Long balance;
+
+        public static Response from(AccountDto accountDto) {
+            return Response.builder()
+                    .accountNumber(accountDto.getAccountNumber())
+                    .balance(accountDto.getBalance())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.account.dto;
+
+
+import com.example.account.aop.MultiAccountLockIdInterface;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+public class Transfer {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request implements MultiAccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+
+        @JsonIgnore
+        @Override
+        public Collection<String> getLockAccountNumbers() {
+            return Arrays.asList(fromAccountNumber, toAccountNumber);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String transferId;
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private Long amount;
+        private String fromTransactionId;
+        private String toTransactionId;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransferDto transferDto) {
+            return Response.builder()
+                    .transferId(transferDto.getTransferId())
+                    .fromAccountNumber(transferDto.getFromAccountNumber())
+                    .toAccountNumber(transferDto.getToAccountNumber())
+                    .amount(transferDto.getAmount())
+                    .fromTransactionId(transferDto.getFromTransactionId())
+                    .toTransactionId(transferDto.getToTransactionId())
+                    .transactedAt(transferDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
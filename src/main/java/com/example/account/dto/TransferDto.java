@@ -0,0 +1,22 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferDto {
+    private String transferId;
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private Long amount;
+    //출금 / 입금 거래 id
+    private String fromTransactionId;
+    private String toTransactionId;
+    private Long fromBalanceSnapshot;
+    private LocalDateTime transactedAt;
+}
@@ -1,7 +1,7 @@
 package com.example.account.dto;
 
 
-import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.BalanceAdmissionInterface;
 import com.example.account.type.TransactionResultType;
 import lombok.*;
 
@@ -13,7 +13,7 @@ public class UseBalance {
     @Getter
     @Setter
     @AllArgsConstructor
-    public static class Request implements AccountLockIdInterface {
+    public static class Request implements BalanceAdmissionInterface {
         @NotNull
         @Min(1)
         private Long userId;
@@ -13,10 +13,17 @@ public class AccountException extends RuntimeException {
     //checked 익셉션이 되기떄문에.. 롤백안해줌 ->사용 불편함... 그러해서 보통 RuntimeException을 extends함..기본적인
     private ErrorCode errorCode;
     private String errorMessage;
+    //스냅샷처럼 오래됐을 수 있는 값으로 판단한 오류 -> 멱등성 결과로 남기지 않음 (재시도하면 다시 실행)
+    private boolean provisional;
 
     public AccountException(ErrorCode errorCode) {
         this.errorCode = errorCode;
         this.errorMessage = errorCode.getDescription();
     }
 
+    public AccountException(ErrorCode errorCode, boolean provisional) {
+        this(errorCode);
+        this.provisional = provisional;
+    }
+
 }
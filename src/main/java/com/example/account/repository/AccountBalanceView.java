@@ -0,0 +1,10 @@
+package com.example.account.repository;
+
+/**
+ * 잔액 변경 후 id와 잔액만 필요할 때 쓰는 projection (엔티티를 만들지 않음)
+ */
+public interface AccountBalanceView {
+    Long getId();
+
+    Long getBalance();
+}
@@ -0,0 +1,16 @@
+package com.example.account.repository;
+
+import com.example.account.type.AccountStatus;
+
+/**
+ * 계좌 색인(AccountIndex)에 넣을 값만 읽는 projection (잔액 / 엔티티 없이)
+ */
+public interface AccountRefView {
+    Long getId();
+
+    String getAccountNumber();
+
+    Long getUserId();
+
+    AccountStatus getAccountStatus();
+}
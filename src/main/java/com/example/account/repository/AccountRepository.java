@@ -2,9 +2,18 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountInfo;
+import com.example.account.type.AccountStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,9 +22,56 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     //계좌개설이 처음일수도있어서 Optional로 가져옴 null 처리 해야해서.
     Optional<Account> findFirstByOrderByIdDesc();
 
-    Integer countByAccountUser(AccountUser accountUser);
-
     Optional<Account> findByAccountNumber(String AccountNumber);
 
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    //엔티티를 그대로 응답할 때 -> 소유주까지 한번에 가져옴 (트랜잭션 밖에서 직렬화)
+    @EntityGraph(attributePaths = "accountUser")
+    Optional<Account> findWithAccountUserById(Long id);
+
+    //계좌 목록 조회 응답(AccountInfo)을 바로 만듦 -> 엔티티 / Dto 변환 없이 쿼리 한번, hot 계좌는 sub-balance 칸 합계를 더한 잔액
+    @Query("select new com.example.account.dto.AccountInfo(a.accountNumber, a.balance + coalesce(sum(s.balance), 0)) " +
+            "from Account a left join SubBalance s on s.account.id = a.id " +
+            "where a.accountUser.id = :userId " +
+            "group by a.id, a.accountNumber, a.balance " +
+            "order by a.id")
+    List<AccountInfo> findInfosByAccountUserId(@Param("userId") Long userId);
+
+    List<Account> findByHotTrue();
+
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    //계좌번호는 10자리 고정이라 문자열 최대값 = 숫자 최대값
+    @Query("select max(a.accountNumber) from Account a")
+    Optional<String> findMaxAccountNumber();
+
+    Optional<AccountBalanceView> findViewByAccountNumber(String accountNumber);
+
+    //계좌 색인(AccountIndex) 용 -> id 순서로 나눠서 읽음
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.accountUser.id as userId, " +
+            "a.accountStatus as accountStatus from Account a where a.id > :id order by a.id")
+    List<AccountRefView> findRefsAfter(@Param("id") Long id, Pageable pageable);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.accountUser.id as userId, " +
+            "a.accountStatus as accountStatus from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountRefView> findRefByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    //소유주, 상태, 잔액 검사와 차감을 한 문장으로 -> 영향받은 row 수가 0이면 실패
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber and a.accountUser.id = :userId " +
+            "and a.balance >= :amount and a.accountStatus = :status")
+    int decreaseBalanceIfEnough(@Param("accountNumber") String accountNumber,
+                                @Param("userId") Long userId,
+                                @Param("amount") Long amount,
+                                @Param("status") AccountStatus status,
+                                @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber")
+    int increaseBalance(@Param("accountNumber") String accountNumber,
+                        @Param("amount") Long amount,
+                        @Param("now") LocalDateTime now);
 }
@@ -2,9 +2,22 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
 
+    //제한보다 적을때만 올림 -> 영향받은 row 수가 0이면 제한 초과 (사용자 row 락으로 여러 노드의 동시 생성도 순서대로)
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1 " +
+            "where u.id = :id and u.accountCount < :max")
+    int increaseAccountCountIfBelow(@Param("id") Long id, @Param("max") int max);
+
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount - 1 " +
+            "where u.id = :id and u.accountCount > 0")
+    int decreaseAccountCount(@Param("id") Long id);
 }
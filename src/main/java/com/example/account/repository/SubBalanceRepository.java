@@ -0,0 +1,25 @@
+package com.example.account.repository;
+
+import com.example.account.domain.SubBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SubBalanceRepository extends JpaRepository<SubBalance, Long> {
+    Optional<SubBalance> findByAccountIdAndSlot(Long accountId, int slot);
+
+    List<SubBalance> findByAccountIdOrderBySlot(Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from SubBalance s where s.account.id = :accountId")
+    Long sumBalance(@Param("accountId") Long accountId);
+
+    @Query("select s.account.id as accountId, sum(s.balance) as balance from SubBalance s " +
+            "where s.account.id in :accountIds group by s.account.id")
+    List<SubBalanceSum> sumBalances(@Param("accountIds") Collection<Long> accountIds);
+}
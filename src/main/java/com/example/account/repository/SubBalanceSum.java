@@ -0,0 +1,8 @@
+package com.example.account.repository;
+
+//계좌별 sub-balance 합계
+public interface SubBalanceSum {
+    Long getAccountId();
+
+    Long getBalance();
+}
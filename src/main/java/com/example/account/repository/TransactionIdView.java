@@ -0,0 +1,10 @@
+package com.example.account.repository;
+
+/**
+ * 거래 id 필터를 다시 만들때 쓰는 projection (id 순서로 나눠 읽음)
+ */
+public interface TransactionIdView {
+    Long getId();
+
+    String getTransactionId();
+}
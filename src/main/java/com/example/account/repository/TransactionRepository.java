@@ -1,13 +1,32 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    //원거래의 계좌번호까지 필요한 경우 (트랜잭션 밖에서 사용) -> 계좌를 같은 쿼리로 가져옴
+    @EntityGraph(attributePaths = "account")
+    Optional<Transaction> findWithAccountByTransactionId(String transactionId);
+
+    //거래 조회 응답용 -> 엔티티를 만들지 않고 쿼리 한번으로 Dto 생성
+    @Query("select new com.example.account.dto.TransactionDto(a.accountNumber, t.transactionType, " +
+            "t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) " +
+            "from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionDto> findDtoByTransactionId(@Param("transactionId") String transactionId);
+
+    //거래 id 필터 재생성용 -> id 순서로 나눠서 읽음
+    List<TransactionIdView> findByIdGreaterThanOrderById(Long id, Pageable pageable);
 }
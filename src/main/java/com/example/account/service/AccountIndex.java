@@ -0,0 +1,211 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.repository.AccountRefView;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 계좌번호(10자리 숫자) -> 계좌 id / 소유주 id / 상태 를 메모리에 들고 있는 색인
+ * 키와 값 모두 long 하나 (LongLongHashMap) 라서 계좌 한개에 20바이트 안팎
+ * 시작할때 전체를 읽고, 계좌 생성 / 해지는 커밋 후에 반영한다.
+ * 다른 노드에서 만든 계좌는 처음 찾을때 DB 에서 읽어서 넣고, 해지는 Redis topic 으로 전달받는다.
+ *
+ * 값 : 계좌 id (상위 32비트) | 소유주 id (31비트) | 상태 (1비트)
+ * 범위를 넘는 id 는 넣지 않음 -> 매번 DB 에서 찾는다.
+ */
+@Slf4j
+@Component
+public class AccountIndex {
+    static final String TOPIC = "AIDX:unregister";
+    private static final long MAX_ID = Integer.MAX_VALUE;
+
+    private final AccountRepository accountRepository;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${account.index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${account.index.initial-capacity:65536}")
+    private int initialCapacity = 65536;
+
+    @Value("${account.index.load-batch-size:10000}")
+    private int loadBatchSize = 10000;
+
+    private LongLongHashMap entries;
+    private RTopic topic;
+    private int listenerId = -1;
+
+    public AccountIndex(AccountRepository accountRepository,
+                        RedissonClient redissonClient,
+                        MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.redissonClient = redissonClient;
+        this.meterRegistry = meterRegistry;
+        this.hits = meterRegistry.counter("account.index.lookup", "result", "hit");
+        this.misses = meterRegistry.counter("account.index.lookup", "result", "miss");
+    }
+
+    @PostConstruct
+    public void init() {
+        entries = new LongLongHashMap(initialCapacity);
+        if (!enabled) {
+            return;
+        }
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, accountNumber) -> markUnregistered(accountNumber));
+
+        Gauge.builder("account.index.entries", this, index -> index.entries.size())
+                .register(meterRegistry);
+        Gauge.builder("account.index.memory", this, index -> index.entries.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (listenerId != -1) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        //전체 건수만큼 미리 늘려서 확장 없이 적재 -> 빈 칸 낭비가 가장 적음
+        entries.ensureCapacity((int) Math.min(Integer.MAX_VALUE / 2, accountRepository.count()));
+        long lastId = 0L;
+        List<AccountRefView> page;
+        while (!(page = accountRepository.findRefsAfter(lastId, PageRequest.of(0, loadBatchSize))).isEmpty()) {
+            //적재 중에 커밋된 생성/해지가 먼저 들어가 있으면 덮어쓰지 않음
+            page.forEach(view -> putIfAbsent(view.getAccountNumber(),
+                    view.getId(), view.getUserId(), view.getAccountStatus()));
+            lastId = page.get(page.size() - 1).getId();
+        }
+        log.info("Account index loaded. {} accounts, {} bytes", entries.size(), entries.memoryBytes());
+    }
+
+    /**
+     * 색인에 없으면 DB 에서 한번 찾아서 넣는다. 없는 계좌면 empty
+     */
+    public Optional<AccountRef> resolve(String accountNumber) {
+        long key = toKey(accountNumber);
+        if (enabled && key != 0) {
+            long packed = entries.get(key);
+            if (packed != LongLongHashMap.NO_VALUE) {
+                hits.increment();
+                return Optional.of(unpack(packed));
+            }
+        }
+        misses.increment();
+        return accountRepository.findRefByAccountNumber(accountNumber)
+                .map(view -> {
+                    putIfAbsent(view.getAccountNumber(), view.getId(), view.getUserId(), view.getAccountStatus());
+                    return new AccountRef(view.getId(), view.getUserId(), view.getAccountStatus());
+                });
+    }
+
+    //롤백된 계좌가 남지 않도록 커밋 후에 넣음
+    public void putAfterCommit(Account account) {
+        afterCommit(() -> putIfAbsent(account.getAccountNumber(),
+                account.getId(), account.getAccountUser().getId(), account.getAccountStatus()));
+    }
+
+    //해지는 되돌릴 수 없으므로 커밋 후 모든 노드에 알림
+    public void unregisterAfterCommit(String accountNumber) {
+        afterCommit(() -> {
+            markUnregistered(accountNumber);
+            if (topic != null) {
+                topic.publishAsync(accountNumber);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void markUnregistered(String accountNumber) {
+        long key = toKey(accountNumber);
+        if (key == 0) {
+            return;
+        }
+        long packed = entries.get(key);
+        if (packed != LongLongHashMap.NO_VALUE) {
+            AccountRef ref = unpack(packed);
+            entries.put(key, pack(ref.getId(), ref.getUserId(), AccountStatus.UNREGISTERED));
+        }
+    }
+
+    private void putIfAbsent(String accountNumber, Long id, Long userId, AccountStatus accountStatus) {
+        long key = toKey(accountNumber);
+        if (key == 0 || id == null || userId == null
+                || id < 0 || id > MAX_ID || userId < 0 || userId > MAX_ID) {
+            return;
+        }
+        entries.putIfAbsent(key, pack(id, userId, accountStatus));
+    }
+
+    //숫자가 아니거나 0 이면 0 (색인하지 않음)
+    static long toKey(String accountNumber) {
+        if (accountNumber == null || accountNumber.isEmpty() || accountNumber.length() > 18) {
+            return 0L;
+        }
+        long key = 0L;
+        for (int i = 0; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0L;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    static long pack(long id, long userId, AccountStatus accountStatus) {
+        return id << 32 | userId << 1 | (accountStatus == AccountStatus.UNREGISTERED ? 1L : 0L);
+    }
+
+    static AccountRef unpack(long packed) {
+        return new AccountRef(
+                packed >>> 32,
+                (packed >>> 1) & MAX_ID,
+                (packed & 1L) == 1L ? AccountStatus.UNREGISTERED : AccountStatus.IN_USE);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 사용자별 계좌 목록 응답 캐시 (GET /account, 노드 로컬)
+ * 있으면 락 없이 읽고 (Caffeine getIfPresent), 없으면 같은 사용자의 동시 요청은 한번만 읽는다. (Caffeine 키별 로딩)
+ * 잔액이 바뀌거나 계좌가 생성/해지되면 커밋 후 지우고 Redis topic 으로 다른 노드에도 알린다.
+ * 계좌번호로 무효화할때는 계좌 색인에서 소유주를 찾음
+ * 로딩 중에 무효화되면 Caffeine 이 로딩이 끝난 뒤 지우므로 옛 목록이 남지 않는다.
+ */
+@Slf4j
+@Component
+public class AccountInfoCache {
+    static final String TOPIC = "AINF:invalidate";
+
+    private final AccountIndex accountIndex;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${account.info-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${account.info-cache.size:100000}")
+    private long cacheSize = 100000L;
+
+    @Value("${account.info-cache.expire-after-write-ms:30000}")
+    private long expireAfterWriteMs = 30000L;
+
+    private Cache<Long, List<AccountInfo>> accountInfos;
+    //캐시를 끈 경우에만 (켜면 Caffeine 이 키별로 합쳐줌)
+    private SingleFlight<Long, List<AccountInfo>> loads;
+    private RTopic topic;
+    private int listenerId = -1;
+
+    public AccountInfoCache(AccountIndex accountIndex,
+                            RedissonClient redissonClient,
+                            MeterRegistry meterRegistry) {
+        this.accountIndex = accountIndex;
+        this.redissonClient = redissonClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        loads = new SingleFlight<>("account.info", meterRegistry);
+        accountInfos = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accountInfos, "account.info");
+        topic = redissonClient.getTopic(TOPIC, LongCodec.INSTANCE);
+        listenerId = topic.addListener(Long.class, (channel, userId) -> accountInfos.invalidate(userId));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (listenerId != -1) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 캐시에 없으면 loader 로 읽어서 넣는다. loader 가 던진 예외(USER_NOT_FOUND)는 캐시하지 않음
+     * 같은 사용자의 동시 요청은 한번의 로딩 결과를 같이 받는다. (캐시를 켜면 Caffeine, 끄면 SingleFlight)
+     * 돌려준 목록은 여러 요청이 같이 보므로 바꿀 수 없다. (원소인 AccountInfo 도 불변)
+     */
+    public List<AccountInfo> get(Long userId, Function<Long, List<AccountInfo>> loader) {
+        if (!enabled) {
+            return loads.execute(userId, () -> Collections.unmodifiableList(loader.apply(userId)));
+        }
+        List<AccountInfo> cached = accountInfos.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        //로딩 자체는 Caffeine 안에서 -> 같은 키는 한번만 로딩하고, 로딩 중에 온 무효화는 로딩이 끝난 뒤 적용됨
+        return accountInfos.get(userId, key -> Collections.unmodifiableList(loader.apply(key)));
+    }
+
+    //잔액이 바뀐 계좌 -> 소유주의 목록을 지움
+    public void invalidateAfterCommit(String accountNumber) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            accountIndex.resolve(accountNumber)
+                    .ifPresent(accountRef -> invalidateUserAfterCommit(accountRef.getUserId()));
+        } catch (RuntimeException e) {
+            //잔액 변경은 실패시키지 않음 -> expire-after-write 가 지나면 다시 읽음
+            log.error("Failed to invalidate account list of account {}", accountNumber, e);
+        }
+    }
+
+    public void invalidateUserAfterCommit(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    private void invalidate(Long userId) {
+        accountInfos.invalidate(userId);
+        topic.publishAsync(userId);
+    }
+}
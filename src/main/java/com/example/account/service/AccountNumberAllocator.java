@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 계좌번호 발급 (hi/lo)
+ * Redis 카운터("ACNO:hi")를 block-size 만큼 올려서 번호 묶음을 예약하고,
+ * 묶음 안에서는 메모리에서 락 없이 하나씩 나눠준다. -> 노드가 여러개여도 겹치지 않고, 평소에는 DB/Redis 접근 없음
+ * 예약할때마다 카운터를 DB 의 가장 큰 계좌번호(없으면 999999999) 이상으로 맞춘 뒤 올린다. (Lua 스크립트 하나)
+ * -> Redis 키가 없어져도(flush, 영속화 없는 failover) 10자리가 아니거나 이미 있는 번호를 주지 않음
+ * 노드가 재시작하면 쓰지 않은 번호는 건너뛴다. (번호에 구멍이 생길 수 있음)
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountNumberAllocator {
+    static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+    static final long MAX_ACCOUNT_NUMBER = 9_999_999_999L;
+    private static final String KEY = "ACNO:hi";
+
+    //카운터를 max(카운터, 하한) 으로 올린 뒤 묶음 크기만큼 예약, 묶음의 마지막 번호를 돌려줌
+    private static final String RESERVE_SCRIPT =
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0') " +
+            "local floor = tonumber(ARGV[1]) " +
+            "if current < floor then current = floor end " +
+            "current = current + tonumber(ARGV[2]) " +
+            "redis.call('SET', KEYS[1], string.format('%d', current)) " +
+            "return current";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+
+    @Value("${account.account-number.block-size:100}")
+    private long blockSize = 100L;
+
+    private final Object refillLock = new Object();
+    private volatile Block block = new Block(1L, 0L);
+
+    public String next() {
+        while (true) {
+            Block current = block;
+            long number = current.next.getAndIncrement();
+            if (number <= current.last) {
+                return String.valueOf(number);
+            }
+            refill(current);
+        }
+    }
+
+    private void refill(Block exhausted) {
+        synchronized (refillLock) {
+            if (block != exhausted) {
+                //다른 쓰레드가 이미 새 묶음을 받아옴
+                return;
+            }
+            //묶음마다 인덱스 MAX 조회 한번
+            long floor = accountRepository.findMaxAccountNumber()
+                    .map(Long::parseLong)
+                    .orElse(FIRST_ACCOUNT_NUMBER - 1);
+            Long last = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    RESERVE_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(KEY), String.valueOf(floor), String.valueOf(blockSize));
+            if (last > MAX_ACCOUNT_NUMBER) {
+                throw new IllegalStateException("Account numbers are exhausted");
+            }
+            block = new Block(last - blockSize + 1, last);
+        }
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long last;
+
+        private Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.service;
+
+import com.example.account.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 계좌번호로 찾은 계좌 id / 소유주 id / 상태 (AccountIndex)
+ * id 와 소유주는 바뀌지 않음. 상태는 다른 노드의 해지가 늦게 반영될 수 있어서 UNREGISTERED 만 그대로 믿는다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountRef {
+    private final long id;
+    private final long userId;
+    private final AccountStatus accountStatus;
+}
@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * 계좌별 단일 작성자(single writer) 실행기
+ * 계좌번호를 해시해서 고정된 워커 쓰레드(lane) 중 하나에 보낸다.
+ * 같은 계좌의 요청은 항상 같은 쓰레드에서 들어온 순서대로 실행되고,
+ * 다른 계좌의 요청은 다른 lane 에서 동시에 실행된다.
+ */
+@Slf4j
+@Component
+public class AccountSerialExecutor {
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int CANCELLED = 2;
+
+    @Value("${account.serial-executor.enabled:false}")
+    private boolean enabled;
+
+    //0 이면 cpu 코어 수만큼 lane 생성
+    @Value("${account.serial-executor.workers:0}")
+    private int workers;
+
+    @Value("${account.serial-executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${account.serial-executor.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    private ThreadPoolExecutor[] lanes;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int laneCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "account-serial-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName));
+        }
+        log.info("Account serial executor started with {} lanes", laneCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (lanes == null) {
+            return;
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 계좌의 lane 에 작업을 넣고 결과를 기다린다.
+     * 대기시간 안에 시작조차 못한 작업은 취소하고 ACCOUNT_TRANSACTION_LOCK 으로 실패시킨다.
+     * 이미 시작된 작업은 끝날때까지 기다린다. (응답은 실패인데 잔액은 바뀌는 경우가 없도록)
+     */
+    public Object execute(String accountNumber, SerialTask task) throws Throwable {
+        AtomicInteger state = new AtomicInteger(PENDING);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+
+        try {
+            laneOf(accountNumber).execute(() -> {
+                if (!state.compareAndSet(PENDING, RUNNING)) {
+                    return;
+                }
+                try {
+                    future.complete(task.run());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Serial lane is full. accountNumber : {}", accountNumber);
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        try {
+            return waitFor(future, state);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object waitFor(CompletableFuture<Object> future, AtomicInteger state)
+            throws InterruptedException, ExecutionException {
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                log.error("Serial lane wait timeout.");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+            return future.get();
+        }
+    }
+
+    private ThreadPoolExecutor laneOf(String accountNumber) {
+        return lanes[(accountNumber.hashCode() & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    @FunctionalInterface
+    public interface SerialTask {
+        Object run() throws Throwable;
+    }
+}
@@ -3,13 +3,19 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.SubBalanceRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 import javax.validation.constraints.Min;
@@ -17,6 +23,7 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -28,8 +35,19 @@ import static com.example.account.type.ErrorCode.*;
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
+    private final AccountUserCache accountUserCache;
     private final AccountUserRepository accountUserRepository;
+    private final RedisBalanceStore redisBalanceStore;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final SubBalanceRepository subBalanceRepository;
+    private final AccountIndex accountIndex;
+    private final AccountInfoCache accountInfoCache;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
 
     /**
      * 사용자가 있는지 조회
@@ -39,7 +57,7 @@ public class AccountService {
     @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance) {
         //리턴값 옵셔널인데 값이 없거나 문제가있으면 익셉션을 날림 orElseThrow
-        AccountUser accountUser = accountUserRepository.findById(userId)
+        AccountUser accountUser = accountUserCache.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
 
         //경우의 수가 많아질경우 지저분해짐 별도의 매소드로 빼는것이 좋다.
@@ -48,14 +66,8 @@ public class AccountService {
 
         //혹은 new IllegalStateException() , new IllegalArgumentException().. 상황에 맞는것을.. 상황에 맞는게 없다면 커스텀 익셉션을 만들어야함.
 
-        //현재 제일 마지막에 생성된 계좌번호를 가져오기. 그 계좌의 번호보다 +1 숫자를 넣어줌
-        //어카운드를 숫자로 파스한다음에 +1 연산을 해주고 다시 문자로 바꿈
-        //+ "" 문자로 바뀌주기.. toString써도 됨
-        //계좌번호가 없는경우 orElse로 계좌번호 1000000000로 계좌번호만들어줌
-
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        //계좌번호는 미리 예약해둔 번호 묶음에서 하나씩 -> 마지막 계좌 조회 없이, 동시 생성/여러 노드에서도 겹치지 않음
+        String newAccountNumber = accountNumberAllocator.next();
 
         //위 정보 저장 후 리턴
         //엔티티클래스 그대로 넘기면..레이지 로딩 + 추가쿼리 날림 시 -> 오류 발생할수있는 트랜젝션 문제 해결 및
@@ -72,19 +84,41 @@ public class AccountService {
         );
         */
 
-        return AccountDto.fromEntity(accountRepository.save(
+        Account account = accountRepository.save(
                 Account.builder()
                         .accountUser(accountUser)
                         .accountStatus(IN_USE)
                         .accountNumber(newAccountNumber)
                         .balance(initialBalance)
                         .registeredAt(LocalDateTime.now())
-                        .build())
-        );
+                        .build());
+
+        if (balanceMutationMode == BalanceMutationMode.REDIS) {
+            putBalanceAfterCommit(account);
+        }
+        accountIndex.putAfterCommit(account);
+        accountInfoCache.invalidateUserAfterCommit(accountUser.getId());
+
+        return AccountDto.fromEntity(account);
     }
 
+    //커밋이 안된 계좌가 Redis 에서 먼저 사용되지 않도록 커밋 후에 올림
+    private void putBalanceAfterCommit(Account account) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            redisBalanceStore.put(account);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisBalanceStore.put(account);
+            }
+        });
+    }
+
+    //사용자 row 의 계좌 수를 조건부로 올림 -> 계좌 테이블 COUNT 없이, 롤백되면 같이 되돌아감
     private void validateCreateAccount(AccountUser accountUser) {
-        if (accountRepository.countByAccountUser(accountUser) >= 10) {
+        if (accountUserRepository.increaseAccountCountIfBelow(accountUser.getId(), MAX_ACCOUNT_PER_USER) == 0) {
             throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
         }
     }
@@ -94,23 +128,31 @@ public class AccountService {
         if (id < 0) {
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get();
+        //엔티티를 그대로 응답하므로 소유주까지 가져옴
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
 
     @Transactional
     public AccountDto deleteAccount(@NotNull @Min(1) Long userId, @NotBlank @Size(min = 10, max = 10) String accountNumber) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
+        AccountUser accountUser = accountUserCache.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
         validateDeleteAccount(accountUser, account);
 
+        if (balanceMutationMode == BalanceMutationMode.REDIS) {
+            unregisterBalance(accountNumber);
+        }
+
         account.setAccountStatus(UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
+        accountUserRepository.decreaseAccountCount(accountUser.getId());
 
         accountRepository.save(account);
+        accountIndex.unregisterAfterCommit(accountNumber);
+        accountInfoCache.invalidateUserAfterCommit(accountUser.getId());
 
         return AccountDto.fromEntity(account);
     }
@@ -123,20 +165,79 @@ public class AccountService {
         if (account.getAccountStatus() == UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
+        //REDIS 모드는 DB 잔액이 늦게 반영되므로 Redis 에서 확인 (unregisterBalance)
+        if (balanceMutationMode != BalanceMutationMode.REDIS && getBalance(account) > 0) {
+            throw new AccountException(BALANCE_NOT_EMPTY);
+        }
+
+    }
+
+    //잔액 확인과 해지 상태 변경을 Redis 에서 한번에 -> 그 사이 사용/취소가 끼어들지 않음
+    private void unregisterBalance(String accountNumber) {
+        long result = redisBalanceStore.unregister(accountNumber);
+        if (result == RedisBalanceStore.NOT_EMPTY) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
+        if (result == RedisBalanceStore.NOT_FOUND) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        }
+        reregisterBalanceOnRollback(accountNumber);
+    }
 
+    //Redis 는 커밋 전에 해지 상태가 되므로 DB 가 롤백되면 다시 사용 가능으로 되돌림
+    private void reregisterBalanceOnRollback(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    redisBalanceStore.reregister(accountNumber);
+                }
+            }
+        });
+    }
+
+    /**
+     * 계좌 목록 조회 (가장 많이 호출되는 읽기) -> 사용자별 응답 캐시, 없으면 projection 쿼리 한번
+     */
+    public List<AccountInfo> getAccountsByUserId(Long userId) {
+        return accountInfoCache.get(userId, this::loadAccountInfos);
     }
 
-    public List<AccountDto> getAccountsByUserId(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(()-> new AccountException(USER_NOT_FOUND));
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
-        //List<Account> -> List<AccountDto>로 변환해서 -> 리스트로바꾸고 리턴
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
-        //.map(account-> AccountDto.formEntity(account))도 같은 동작
+    private List<AccountInfo> loadAccountInfos(Long userId) {
+        //AccountInfo 로 바로 읽음 (hot 계좌 칸 합계 포함), 계좌가 없을때만 사용자 존재 확인
+        List<AccountInfo> accountInfos = accountRepository.findInfosByAccountUserId(userId);
+        if (accountInfos.isEmpty() && !accountUserCache.existsById(userId)) {
+            throw new AccountException(USER_NOT_FOUND);
+        }
+        if (balanceMutationMode == BalanceMutationMode.REDIS && !accountInfos.isEmpty()) {
+            return overlayRedisBalances(accountInfos);
+        }
+        return accountInfos;
+    }
+
+    //DB 잔액은 write-behind 로 늦을 수 있으므로 Redis 잔액으로 새로 만듦
+    private List<AccountInfo> overlayRedisBalances(List<AccountInfo> accountInfos) {
+        List<Long> balances = redisBalanceStore.getBalances(accountInfos.stream()
+                .map(AccountInfo::getAccountNumber)
+                .collect(Collectors.toList()));
+        List<AccountInfo> overlaid = new ArrayList<>(accountInfos.size());
+        for (int i = 0; i < accountInfos.size(); i++) {
+            AccountInfo accountInfo = accountInfos.get(i);
+            overlaid.add(balances.get(i) == null
+                    ? accountInfo
+                    : new AccountInfo(accountInfo.getAccountNumber(), balances.get(i)));
+        }
+        return overlaid;
+    }
+
+    //hot 계좌 잔액 = 계좌 row 잔액 + sub-balance 칸 합계
+    private long getBalance(Account account) {
+        if (!account.isHot()) {
+            return account.getBalance();
+        }
+        return account.getBalance() + subBalanceRepository.sumBalance(account.getId());
     }
 }
@@ -0,0 +1,27 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 락 전 검증용 계좌 스냅샷
+ * 소유주는 바뀌지 않고 해지는 되돌릴 수 없으므로 그대로 믿을 수 있다.
+ * 잔액은 차감으로는 줄어들기만 하므로 상한값으로만 쓰고, 늘어나는 경우(취소, 이체 입금)에 무효화된다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountSnapshot {
+    private final Long ownerId;
+    private final AccountStatus accountStatus;
+    //hot 계좌는 잔액이 칸들에 나눠져 있어서 null (잔액 검사 안함)
+    private final Long balanceUpperBound;
+
+    public static AccountSnapshot from(Account account) {
+        return new AccountSnapshot(
+                account.getAccountUser().getId(),
+                account.getAccountStatus(),
+                account.isHot() ? null : account.getBalance());
+    }
+}
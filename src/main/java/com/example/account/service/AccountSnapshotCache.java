@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 노드 로컬 계좌 스냅샷 캐시 (락 전 검증용)
+ * 잔액이 늘어나는 커밋이 끝나면 로컬에서 바로 지우고, Redis topic 으로 다른 노드에도 알린다.
+ * 로딩 중에 무효화되면 Caffeine 이 로딩이 끝난 뒤 지우므로 옛 값이 남지 않는다.
+ * 다른 노드의 무효화는 topic 전달 시간만큼 늦을 수 있어서 expire-after-write 로 한번 더 제한한다.
+ */
+@Slf4j
+@Component
+public class AccountSnapshotCache {
+    static final String TOPIC = "ASNP:invalidate";
+
+    private final AccountRepository accountRepository;
+    private final RedissonClient redissonClient;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${account.admission.cache-size:100000}")
+    private long cacheSize = 100000L;
+
+    @Value("${account.admission.expire-after-write-ms:5000}")
+    private long expireAfterWriteMs = 5000L;
+
+    private Cache<String, AccountSnapshot> snapshots;
+    private RTopic topic;
+    private int listenerId = -1;
+
+    public AccountSnapshotCache(AccountRepository accountRepository,
+                                RedissonClient redissonClient,
+                                MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.redissonClient = redissonClient;
+        this.hits = meterRegistry.counter("account.admission.cache", "result", "hit");
+        this.misses = meterRegistry.counter("account.admission.cache", "result", "miss");
+    }
+
+    @PostConstruct
+    public void init() {
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .build();
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, accountNumber) -> snapshots.invalidate(accountNumber));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (listenerId != -1) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    //없는 계좌는 캐시하지 않음 -> 락 경로에서 ACCOUNT_NOT_FOUND
+    public Optional<AccountSnapshot> get(String accountNumber) {
+        AccountSnapshot cached = snapshots.getIfPresent(accountNumber);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return Optional.ofNullable(snapshots.get(accountNumber, key -> accountRepository.findByAccountNumber(key)
+                .map(AccountSnapshot::from)
+                .orElse(null)));
+    }
+
+    /**
+     * 잔액이 늘어나는 변경 -> 커밋이 끝난 뒤 모든 노드의 스냅샷을 지운다.
+     */
+    public void invalidateAfterCommit(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(accountNumber);
+            }
+        });
+    }
+
+    private void invalidate(String accountNumber) {
+        snapshots.invalidate(accountNumber);
+        topic.publishAsync(accountNumber);
+    }
+}
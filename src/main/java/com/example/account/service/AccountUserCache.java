@@ -0,0 +1,149 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 사용자 read-through 캐시 (노드 로컬, 크기 제한)
+ * 사용자 row 는 거의 바뀌지 않으므로 요청마다 findById / existsById 를 하지 않는다.
+ * 바뀌거나 지워지면 커밋 후 로컬에서 지우고 Redis topic 으로 다른 노드에도 알린다. (AccountUserCacheListener)
+ * 없는 사용자는 캐시하지 않음 -> 새로 만든 사용자가 바로 보임
+ *
+ * id-only 면 사용자 엔티티를 읽지 않는다. 존재 여부만 확인하고 프록시(getById)를 돌려줌
+ * 서비스는 소유주 비교와 연관관계 설정에 id 만 쓰므로 쿼리 없이 끝난다.
+ */
+@Slf4j
+@Component
+public class AccountUserCache {
+    static final String TOPIC = "AUSR:invalidate";
+
+    private final AccountUserRepository accountUserRepository;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${account.user-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${account.user-cache.id-only:true}")
+    private boolean idOnly = true;
+
+    @Value("${account.user-cache.size:100000}")
+    private long cacheSize = 100000L;
+
+    @Value("${account.user-cache.expire-after-write-ms:600000}")
+    private long expireAfterWriteMs = 600000L;
+
+    private Cache<Long, AccountUser> users;
+    private RTopic topic;
+    private int listenerId = -1;
+
+    public AccountUserCache(AccountUserRepository accountUserRepository,
+                            RedissonClient redissonClient,
+                            MeterRegistry meterRegistry) {
+        this.accountUserRepository = accountUserRepository;
+        this.redissonClient = redissonClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "account.user");
+        topic = redissonClient.getTopic(TOPIC, LongCodec.INSTANCE);
+        listenerId = topic.addListener(Long.class, (channel, userId) -> users.invalidate(userId));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (listenerId != -1) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * id-only 면 프록시 (id 외의 값을 읽으면 그때 조회), 아니면 캐시된 사용자의 복사본
+     */
+    public Optional<AccountUser> findById(Long userId) {
+        if (!enabled) {
+            return accountUserRepository.findById(userId);
+        }
+        AccountUser cached = users.get(userId, this::load);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        //여러 요청이 같은 객체를 바꾸지 않도록 캐시된 객체는 그대로 넘기지 않음
+        return Optional.of(idOnly ? accountUserRepository.getById(userId) : copy(cached));
+    }
+
+    public boolean existsById(Long userId) {
+        if (!enabled) {
+            return accountUserRepository.existsById(userId);
+        }
+        return users.get(userId, this::load) != null;
+    }
+
+    //사용자를 바꾼 트랜잭션이 커밋된 뒤 모든 노드에서 지움
+    public void evictAfterCommit(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    private void evict(Long userId) {
+        users.invalidate(userId);
+        topic.publishAsync(userId);
+    }
+
+    //null 이면 캐시하지 않음
+    private AccountUser load(Long userId) {
+        if (idOnly) {
+            return accountUserRepository.existsById(userId)
+                    ? AccountUser.builder().id(userId).build()
+                    : null;
+        }
+        return accountUserRepository.findById(userId)
+                .map(AccountUserCache::copy)
+                .orElse(null);
+    }
+
+    //계좌 수는 조건부 UPDATE 로만 바뀌어서 캐시된 값이 맞지 않음 -> 복사하지 않음
+    private static AccountUser copy(AccountUser accountUser) {
+        return AccountUser.builder()
+                .id(accountUser.getId())
+                .name(accountUser.getName())
+                .createdAt(accountUser.getCreatedAt())
+                .updatedAt(accountUser.getUpdatedAt())
+                .build();
+    }
+}
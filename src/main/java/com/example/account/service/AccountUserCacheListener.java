@@ -0,0 +1,27 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * 사용자 엔티티가 바뀌거나 지워지면 AccountUserCache 에서 지운다. (커밋 후, 모든 노드)
+ * EntityManagerFactory 를 만들때 생성되므로 캐시(-> repository -> EntityManagerFactory)는 쓸때 가져옴
+ */
+@Component
+public class AccountUserCacheListener {
+    private final ObjectProvider<AccountUserCache> accountUserCache;
+
+    public AccountUserCacheListener(ObjectProvider<AccountUserCache> accountUserCache) {
+        this.accountUserCache = accountUserCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(AccountUser accountUser) {
+        accountUserCache.ifAvailable(cache -> cache.evictAfterCommit(accountUser.getId()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.aop.BalanceAdmissionInterface;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 계좌 락을 잡기 전에 스냅샷으로 반드시 실패할 요청을 걸러낸다. (LOCK 모드)
+ * 소유주가 다른 경우, 해지된 계좌, 거래 금액이 잔액 상한보다 큰 경우만 거절하고
+ * 나머지는 지금처럼 락을 잡고 DB 에서 다시 검증한다.
+ * 멱등성 처리(@Order(1)), 거래 id 필터(@Order(3)) 다음, 계좌 락(LockAopAspect) 전에 실행된다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(3)
+public class AdmissionAspect {
+    private final AccountSnapshotCache accountSnapshotCache;
+    private final AccountUserCache accountUserCache;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    @Value("${account.admission.enabled:true}")
+    private boolean enabled = true;
+
+    public AdmissionAspect(AccountSnapshotCache accountSnapshotCache,
+                           AccountUserCache accountUserCache,
+                           HotAccountRegistry hotAccountRegistry,
+                           FailedTransactionRecorder failedTransactionRecorder,
+                           MeterRegistry meterRegistry) {
+        this.accountSnapshotCache = accountSnapshotCache;
+        this.accountUserCache = accountUserCache;
+        this.hotAccountRegistry = hotAccountRegistry;
+        this.failedTransactionRecorder = failedTransactionRecorder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request, ..)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            BalanceAdmissionInterface request
+    ) throws Throwable {
+        //락을 잡는 경우에만 의미가 있음 (hot 계좌는 계좌 락 대신 칸 락)
+        if (enabled
+                && balanceMutationMode.requiresAccountLock()
+                && !hotAccountRegistry.isHot(request.getAccountNumber())) {
+            Optional<ErrorCode> rejection = check(request);
+            if (rejection.isPresent()) {
+                reject(request, rejection.get());
+            }
+        }
+        return pjp.proceed();
+    }
+
+    Optional<ErrorCode> check(BalanceAdmissionInterface request) {
+        Optional<AccountSnapshot> found = accountSnapshotCache.get(request.getAccountNumber());
+        if (!found.isPresent()) {
+            return Optional.empty();
+        }
+        AccountSnapshot snapshot = found.get();
+        if (!Objects.equals(snapshot.getOwnerId(), request.getUserId())) {
+            //서비스와 같은 오류 코드 -> 사용자가 없으면 USER_NOT_FOUND 가 먼저
+            return Optional.of(accountUserCache.existsById(request.getUserId())
+                    ? ErrorCode.USER_ACCOUNT_UN_MATCH
+                    : ErrorCode.USER_NOT_FOUND);
+        }
+        if (snapshot.getAccountStatus() != AccountStatus.IN_USE) {
+            return Optional.of(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (snapshot.getBalanceUpperBound() != null && snapshot.getBalanceUpperBound() < request.getAmount()) {
+            return Optional.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        return Optional.empty();
+    }
+
+    private void reject(BalanceAdmissionInterface request, ErrorCode errorCode) {
+        //락을 잡지 않고 끝난 요청 수
+        meterRegistry.counter("account.admission.rejected", "reason", errorCode.name()).increment();
+
+        if (request instanceof UseBalance.Request) {
+            //컨트롤러에서 실패했을때와 같이 F 거래로 남김
+            failedTransactionRecorder.record(USE, request.getAccountNumber(), request.getAmount());
+        }
+        //소유주와 해지는 되돌릴 수 없지만 잔액 상한은 무효화가 늦게 온 스냅샷일 수 있음
+        throw new AccountException(errorCode, errorCode == ErrorCode.AMOUNT_EXCEED_BALANCE);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.account.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 백그라운드 writer 들이 큐에서 배치를 꺼낼 때 쓰는 공통 로직
+ */
+final class BatchQueues {
+    private BatchQueues() {
+    }
+
+    /**
+     * 첫 요소를 최대 maxWaitMillis 동안 기다리고,
+     * 첫 요소를 받은 시점부터 maxWaitMillis 가 지나거나 maxSize 개가 모일때까지 더 모은다.
+     * 아무것도 없으면 빈 리스트
+     */
+    static <T> List<T> drain(BlockingQueue<T> queue, int maxSize, long maxWaitMillis) throws InterruptedException {
+        List<T> batch = new ArrayList<>();
+        T first = queue.poll(maxWaitMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (batch.size() < maxSize) {
+            queue.drainTo(batch, maxSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxSize || remaining <= 0) {
+                break;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    //인터럽트가 와도 유실되지 않게 넣는다 (인터럽트 상태는 되살려줌)
+    static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    queue.put(element);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.account.service;
+
+import com.example.account.dto.BulkBalance;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 여러 사용/취소 요청을 계좌별로 묶어서 처리
+ * 같은 계좌 요청은 요청 순서대로, 계좌 락 한번 + DB 트랜잭션 한번에 처리하고
+ * 서로 다른 계좌는 크기가 정해진 쓰레드 풀에서 동시에 처리한다.
+ * 결과는 계좌 묶음이 끝나는 대로 sink 로 넘긴다. (요청 순번 포함, 순서는 보장하지 않음)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkBalanceService {
+    private final TransactionService transactionService;
+    private final RedisBalanceService redisBalanceService;
+    private final LockService lockService;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final Validator validator;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    //0 이면 cpu 코어 수
+    @Value("${account.bulk.workers:0}")
+    private int workers = 0;
+
+    //가득차면 요청 쓰레드가 직접 처리
+    @Value("${account.bulk.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${account.bulk.max-items:50000}")
+    private int maxItems = 50000;
+
+    //한 계좌 요청이 많으면 이 크기로 나눠서 락/트랜잭션을 잡음 (락 lease 시간 안에 끝나도록)
+    @Value("${account.bulk.max-group-size:500}")
+    private int maxGroupSize = 500;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        int size = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-balance-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 모든 요청이 끝날때까지 기다린다.
+     */
+    public void process(List<BulkBalance.Item> items, Consumer<BulkBalance.Result> sink) {
+        if (items.size() > maxItems) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        Object sinkLock = new Object();
+        Consumer<BulkBalance.Result> safeSink = result -> {
+            synchronized (sinkLock) {
+                sink.accept(result);
+            }
+        };
+
+        //계좌번호 -> 요청 순번 (요청 순서 유지)
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int index = 0; index < items.size(); index++) {
+            BulkBalance.Item item = items.get(index);
+            if (!isValid(item)) {
+                BulkBalance.Result result = BulkBalance.Result.failure(
+                        item == null ? null : item.getType(), ErrorCode.INVALID_REQUEST);
+                result.setIndex(index);
+                safeSink.accept(result);
+                continue;
+            }
+            groups.computeIfAbsent(item.getAccountNumber(), key -> new ArrayList<>()).add(index);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        groups.forEach((accountNumber, indexes) -> futures.add(CompletableFuture.runAsync(
+                () -> processAccount(accountNumber, indexes, items, safeSink), executor)));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private boolean isValid(BulkBalance.Item item) {
+        return item != null && item.isComplete() && validator.validate(item).isEmpty();
+    }
+
+    private void processAccount(
+            String accountNumber,
+            List<Integer> indexes,
+            List<BulkBalance.Item> items,
+            Consumer<BulkBalance.Result> sink
+    ) {
+        for (int from = 0; from < indexes.size(); from += maxGroupSize) {
+            List<Integer> groupIndexes = indexes.subList(from, Math.min(from + maxGroupSize, indexes.size()));
+            List<BulkBalance.Item> group = groupIndexes.stream()
+                    .map(items::get)
+                    .collect(Collectors.toList());
+
+            List<BulkBalance.Result> results;
+            try {
+                results = apply(accountNumber, group);
+                recordFailures(accountNumber, group, results);
+            } catch (AccountException e) {
+                //계좌 락을 못잡은 경우 -> 묶음 전체 실패
+                results = failAll(group, e.getErrorCode());
+            } catch (RuntimeException e) {
+                //커밋 실패 (낙관적 락 충돌 등) -> 묶음 전체가 롤백됨
+                log.error("Failed to apply bulk balance of account {}", accountNumber, e);
+                results = failAll(group, ErrorCode.INTERNAL_SERVER_ERROR);
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                BulkBalance.Result result = results.get(i);
+                result.setIndex(groupIndexes.get(i));
+                sink.accept(result);
+            }
+        }
+    }
+
+    private List<BulkBalance.Result> apply(String accountNumber, List<BulkBalance.Item> group) {
+        if (redisBalanceService.isEnabled()) {
+            //REDIS 모드는 DB 트랜잭션 없이 건별 Lua 스크립트
+            return group.stream()
+                    .map(item -> applyEach(item, this::applyOnRedis))
+                    .collect(Collectors.toList());
+        }
+        if (hotAccountRegistry.isHot(accountNumber)) {
+            //hot 계좌는 칸에서 꺼낸 뒤에 잔액 부족을 알 수 있음 -> 실패한 건의 트랜잭션이 롤백되어야 칸이 되돌아감
+            //applyBulk 는 건별 실패를 잡아서 커밋하므로 쓰지 않고, 단건 API 와 같이 건마다 트랜잭션 (칸 락은 건별로)
+            return group.stream()
+                    .map(item -> applyEach(item, this::applyInOwnTransaction))
+                    .collect(Collectors.toList());
+        }
+        if (!balanceMutationMode.requiresAccountLock()) {
+            return transactionService.applyBulk(group);
+        }
+        lockService.lock(accountNumber);
+        try {
+            return transactionService.applyBulk(group);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private BulkBalance.Result applyEach(BulkBalance.Item item, Function<BulkBalance.Item, TransactionDto> operation) {
+        try {
+            return BulkBalance.Result.success(item.getType(), operation.apply(item));
+        } catch (AccountException e) {
+            return BulkBalance.Result.failure(item.getType(), e.getErrorCode());
+        }
+    }
+
+    private TransactionDto applyOnRedis(BulkBalance.Item item) {
+        return item.getType() == TransactionType.USE
+                ? redisBalanceService.useBalance(item.getUse().getUserId(),
+                        item.getUse().getAccountNumber(), item.getUse().getAmount())
+                : redisBalanceService.cancelBalance(item.getCancel().getTransactionId(),
+                        item.getCancel().getAccountNumber(), item.getCancel().getAmount());
+    }
+
+    //프록시를 거친 @Transactional 호출 -> 예외가 나면 그 건만 롤백
+    private TransactionDto applyInOwnTransaction(BulkBalance.Item item) {
+        return item.getType() == TransactionType.USE
+                ? transactionService.useBalance(item.getUse().getUserId(),
+                        item.getUse().getAccountNumber(), item.getUse().getAmount())
+                : transactionService.cancelBalance(item.getCancel().getTransactionId(),
+                        item.getCancel().getAccountNumber(), item.getCancel().getAmount());
+    }
+
+    //단건 API 와 같이 비지니스 오류로 실패한 건은 F 거래로 남김
+    private void recordFailures(String accountNumber, List<BulkBalance.Item> group, List<BulkBalance.Result> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).getErrorCode() != null) {
+                failedTransactionRecorder.record(group.get(i).getType(), accountNumber, group.get(i).getAmount());
+            }
+        }
+    }
+
+    private List<BulkBalance.Result> failAll(List<BulkBalance.Item> group, ErrorCode errorCode) {
+        return group.stream()
+                .map(item -> BulkBalance.Result.failure(item.getType(), errorCode))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.FailedRecordOverflowPolicy;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.F;
+
+/**
+ * 실패 거래(F) 기록을 요청 쓰레드에서 분리
+ * 컨트롤러는 큐에 넣고 바로 에러 응답 (계좌 락도 바로 풀림),
+ * 백그라운드 쓰레드가 모아서 계좌 조회 한번 + JDBC 배치로 저장한다.
+ * 큐가 가득찼을때는 overflow-policy 를 따르고, 종료시 남은 기록을 모두 저장한다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+    private final AccountRepository accountRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final TransactionIdIssuer transactionIdIssuer;
+    private final Counter recorded;
+    private final Counter dropped;
+
+    @Value("${account.failed-transaction.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${account.failed-transaction.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${account.failed-transaction.flush-interval-ms:100}")
+    private long flushIntervalMs = 100L;
+
+    @Value("${account.failed-transaction.overflow-policy:CALLER_RUNS}")
+    private FailedRecordOverflowPolicy overflowPolicy = FailedRecordOverflowPolicy.CALLER_RUNS;
+
+    private BlockingQueue<FailedTransaction> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    public FailedTransactionRecorder(AccountRepository accountRepository,
+                                     LedgerBatchWriter ledgerBatchWriter,
+                                     TransactionIdIssuer transactionIdIssuer,
+                                     MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.transactionIdIssuer = transactionIdIssuer;
+        this.recorded = meterRegistry.counter("account.failed-transaction.recorded");
+        this.dropped = meterRegistry.counter("account.failed-transaction.dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "failed-transaction-writer");
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        //남은 기록을 모두 저장하고 종료
+        running = false;
+        writer.join();
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failed = new FailedTransaction(
+                transactionType, accountNumber, amount, LocalDateTime.now());
+        if (queue.offer(failed)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                dropped.increment();
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(failed)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                break;
+            case CALLER_RUNS:
+                write(Collections.singletonList(failed));
+                break;
+        }
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<FailedTransaction> batch = BatchQueues.drain(queue, batchSize, flushIntervalMs);
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<FailedTransaction> batch) {
+        try {
+            Set<String> accountNumbers = batch.stream()
+                    .map(FailedTransaction::getAccountNumber)
+                    .collect(Collectors.toSet());
+            Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                    .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+            List<LedgerEntry> entries = new ArrayList<>(batch.size());
+            for (FailedTransaction failed : batch) {
+                Account account = accounts.get(failed.getAccountNumber());
+                if (account == null) {
+                    //없는 계좌에 대한 요청 -> 기록할 계좌가 없음
+                    continue;
+                }
+                entries.add(LedgerEntry.builder()
+                        .transaction(Transaction.builder()
+                                .transactionType(failed.getTransactionType())
+                                .transactionResultType(F)
+                                .account(account)
+                                .amount(failed.getAmount())
+                                .balanceSnapshot(account.getBalance())
+                                .transactionId(transactionIdIssuer.issue())
+                                .transactedAt(failed.getFailedAt())
+                                .build())
+                        .accountId(account.getId())
+                        .accountNumber(account.getAccountNumber())
+                        .build());
+            }
+            if (!entries.isEmpty()) {
+                ledgerBatchWriter.write(entries);
+                recorded.increment(entries.size());
+            }
+        } catch (RuntimeException e) {
+            dropped.increment(batch.size());
+            log.error("Failed to record {} failed transactions", batch.size(), e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class FailedTransaction {
+        private final TransactionType transactionType;
+        private final String accountNumber;
+        private final Long amount;
+        private final LocalDateTime failedAt;
+    }
+}
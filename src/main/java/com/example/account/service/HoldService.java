@@ -0,0 +1,342 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.HoldDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.ErrorCode;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 2단계 잔액 사용 (LOCK 모드 전용)
+ * authorize : 계좌 락 안에서 (잔액 - 홀드 합계) 를 확인하고 Redis 홀드 테이블에 금액만 올린다. DB 쓰기 없음
+ * capture : 홀드를 거래 row 로 바꾼다. 같은 계좌로 들어온 capture 는 모아서 계좌 락 한번, DB 트랜잭션 한번으로 저장
+ * 만료된 홀드는 타이머 휠에서 풀린다.
+ * 홀드를 만든 노드가 죽어도 풀리도록 모든 노드가 주기적으로 만료 sorted set 을 훑어서 지난 홀드를 푼다. (풀기는 여러번 해도 같음)
+ * 홀드 합계는 계좌 락 안에서만 늘어나고, capture 된 금액은 DB 커밋 후에 빠지므로
+ * 락 안에서 읽은 (잔액 - 홀드 합계) 는 실제보다 커지지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HoldService {
+    private final HoldStore holdStore;
+    private final AccountRepository accountRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final LockService lockService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionIdIssuer transactionIdIssuer;
+    private final AccountInfoCache accountInfoCache;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    @Value("${account.hold.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${account.hold.ttl-ms:600000}")
+    private long ttlMs = 600_000L;
+
+    @Value("${account.hold.timer-tick-ms:100}")
+    private long timerTickMs = 100L;
+
+    //한번에 저장하는 같은 계좌 capture 최대 수
+    @Value("${account.hold.capture-batch-size:100}")
+    private int captureBatchSize = 100;
+
+    @Value("${account.hold.sweep-interval-ms:1000}")
+    private long sweepIntervalMs = 1000L;
+
+    //한번 훑을때 푸는 최대 수 (나머지는 다음 주기에)
+    @Value("${account.hold.sweep-batch-size:1000}")
+    private int sweepBatchSize = 1000;
+
+    private Timer expiryTimer;
+    private final Map<String, CaptureQueue> captureQueues = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled && balanceMutationMode == BalanceMutationMode.LOCK;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        expiryTimer = new HashedWheelTimer(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        }, timerTickMs, TimeUnit.MILLISECONDS);
+        scheduleSweep();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (expiryTimer != null) {
+            expiryTimer.stop();
+        }
+    }
+
+    //재시작 / 다른 노드에서 만든 홀드도 만료되도록 타이머를 다시 건다 (풀기는 여러번 해도 같음)
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleStoredHolds() {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (String[] expiration : holdStore.getExpirations()) {
+            scheduleExpiry(expiration[0], expiration[1], Long.parseLong(expiration[2]) - now);
+        }
+    }
+
+    //계좌의 홀드 금액 합계 -> 일반 사용에서도 이 금액은 쓸 수 없음
+    public long getHeldAmount(String accountNumber) {
+        if (!isEnabled()) {
+            return 0L;
+        }
+        return holdStore.getHeldAmount(accountNumber);
+    }
+
+    /**
+     * 계좌 락을 잡고 (잔액 - 홀드 합계) 검증을 마친 상태에서 호출
+     */
+    public HoldDto hold(Account account, Long amount) {
+        String holdId = transactionIdGenerator.generate();
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+
+        holdStore.add(account.getAccountNumber(), holdId, amount, expiresAt);
+        scheduleExpiry(account.getAccountNumber(), holdId, ttlMs);
+
+        return HoldDto.builder()
+                .accountNumber(account.getAccountNumber())
+                .holdId(holdId)
+                .amount(amount)
+                .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()))
+                .build();
+    }
+
+    /**
+     * 홀드를 거래로 바꾸고 저장이 끝나면 리턴
+     * 이미 같은 계좌의 capture 를 저장하고 있는 요청이 있으면 그 요청이 다음 배치로 함께 저장한다.
+     */
+    public TransactionDto capture(String accountNumber, String holdId) {
+        if (!isEnabled()) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        PendingCapture capture = new PendingCapture(holdId);
+        CaptureQueue queue = captureQueues.computeIfAbsent(accountNumber, key -> new CaptureQueue());
+        queue.pending.add(capture);
+
+        drainIfIdle(accountNumber, queue);
+        return await(capture);
+    }
+
+    private void drainIfIdle(String accountNumber, CaptureQueue queue) {
+        while (!queue.pending.isEmpty() && queue.draining.compareAndSet(false, true)) {
+            try {
+                List<PendingCapture> batch = new ArrayList<>();
+                PendingCapture capture;
+                while (batch.size() < captureBatchSize && (capture = queue.pending.poll()) != null) {
+                    batch.add(capture);
+                }
+                captureBatch(accountNumber, batch);
+            } finally {
+                queue.draining.set(false);
+            }
+        }
+        if (queue.pending.isEmpty()) {
+            //이후에 같은 큐에 넣은 요청은 자기가 직접 drain 하므로 빠뜨리지 않음
+            captureQueues.remove(accountNumber, queue);
+        }
+    }
+
+    void captureBatch(String accountNumber, List<PendingCapture> batch) {
+        try {
+            lockService.lock(accountNumber);
+        } catch (RuntimeException e) {
+            batch.forEach(capture -> capture.result.completeExceptionally(e));
+            return;
+        }
+        try {
+            writeCaptures(accountNumber, batch);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    //계좌 락 안에서 실행
+    private void writeCaptures(String accountNumber, List<PendingCapture> batch) {
+        List<PendingCapture> claimed = new ArrayList<>(batch.size());
+        try {
+            for (PendingCapture capture : batch) {
+                Optional<Long> amount = holdStore.claim(accountNumber, capture.holdId);
+                if (amount.isPresent()) {
+                    capture.amount = amount.get();
+                    claimed.add(capture);
+                } else {
+                    //만료됐거나 이미 capture 된 홀드
+                    capture.result.completeExceptionally(new AccountException(ErrorCode.HOLD_NOT_FOUND));
+                }
+            }
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            long balance = account.getBalance();
+            List<LedgerEntry> entries = new ArrayList<>(claimed.size());
+            for (PendingCapture capture : claimed) {
+                balance -= capture.amount;
+                if (balance < 0) {
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }
+                capture.transaction = buildTransaction(account, capture.amount, balance);
+                entries.add(LedgerEntry.builder()
+                        .transaction(capture.transaction)
+                        .accountId(account.getId())
+                        .accountNumber(accountNumber)
+                        .newBalance(balance)
+                        .build());
+            }
+            ledgerBatchWriter.write(entries);
+        } catch (RuntimeException e) {
+            log.error("Failed to capture holds of account {}", accountNumber, e);
+            restore(accountNumber, claimed);
+            batch.forEach(capture -> capture.result.completeExceptionally(e));
+            return;
+        }
+
+        accountInfoCache.invalidateAfterCommit(accountNumber);
+        //커밋 후에 홀드 합계에서 뺌 -> 그 사이에는 잔액과 홀드 양쪽에 잡혀서 사용 가능 금액이 작게 보일 뿐
+        for (PendingCapture capture : claimed) {
+            try {
+                holdStore.complete(accountNumber, capture.holdId);
+            } catch (RuntimeException e) {
+                //거래는 이미 커밋됨 -> 응답은 성공
+                log.error("Failed to remove captured hold {} of account {}", capture.holdId, accountNumber, e);
+            }
+            capture.result.complete(TransactionDto.fromEntity(capture.transaction, accountNumber));
+        }
+    }
+
+    //저장하지 못한 홀드는 다시 홀드 상태로 -> 재시도하거나 만료로 풀림
+    private void restore(String accountNumber, List<PendingCapture> claimed) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        try {
+            for (PendingCapture capture : claimed) {
+                holdStore.unclaim(accountNumber, capture.holdId, expiresAt);
+                scheduleExpiry(accountNumber, capture.holdId, ttlMs);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to restore holds of account {}", accountNumber, e);
+        }
+    }
+
+    private Transaction buildTransaction(Account account, Long amount, Long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdIssuer.issue())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private TransactionDto await(PendingCapture capture) {
+        try {
+            //배치 하나는 계좌 락 대기(최대 1초) + DB 트랜잭션 한번으로 끝남
+            return capture.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void scheduleExpiry(String accountNumber, String holdId, long delayMillis) {
+        if (expiryTimer == null) {
+            return;
+        }
+        expiryTimer.newTimeout(timeout -> release(accountNumber, holdId),
+                Math.max(delayMillis, 0L), TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduleSweep() {
+        expiryTimer.newTimeout(timeout -> {
+            try {
+                sweepExpired();
+            } finally {
+                scheduleSweep();
+            }
+        }, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void sweepExpired() {
+        try {
+            for (String[] hold : holdStore.getExpired(System.currentTimeMillis(), sweepBatchSize)) {
+                release(hold[0], hold[1]);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep expired holds", e);
+        }
+    }
+
+    private void release(String accountNumber, String holdId) {
+        try {
+            //capture 중인 홀드는 풀리지 않음
+            holdStore.release(accountNumber, holdId);
+        } catch (RuntimeException e) {
+            log.error("Failed to release hold {} of account {}", holdId, accountNumber, e);
+        }
+    }
+
+    private static class CaptureQueue {
+        private final Queue<PendingCapture> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    static class PendingCapture {
+        private final String holdId;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+        private long amount;
+        private Transaction transaction;
+
+        PendingCapture(String holdId) {
+            this.holdId = holdId;
+        }
+
+        CompletableFuture<TransactionDto> getResult() {
+            return result;
+        }
+    }
+}
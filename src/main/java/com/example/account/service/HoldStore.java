@@ -0,0 +1,132 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.ScoredEntry;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 잔액 홀드(authorize) 테이블
+ * 계좌마다 "AHLD:" + 계좌번호 hash 에
+ * "h:" + holdId -> 금액 (홀드중), "c:" + holdId -> 금액 (capture 중), total -> 홀드 금액 합계 를 저장한다.
+ * 만료 시각은 "AHLD:expiry" sorted set 에 (계좌번호|holdId, 만료시각) 으로 둔다. -> 재시작시 타이머 복구, 만료 sweep 용
+ */
+@Component
+@RequiredArgsConstructor
+public class HoldStore {
+    static final String EXPIRY_KEY = "AHLD:expiry";
+
+    private static final String ADD_SCRIPT =
+            "redis.call('HSET', KEYS[1], 'h:' .. ARGV[1], ARGV[2]) " +
+            "redis.call('HINCRBY', KEYS[1], 'total', ARGV[2]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[3], ARGV[4]) " +
+            "return 0";
+
+    private static final String RELEASE_SCRIPT =
+            "local amount = redis.call('HGET', KEYS[1], 'h:' .. ARGV[1]) " +
+            "redis.call('ZREM', KEYS[2], ARGV[2]) " +
+            "if not amount then return 0 end " +
+            "redis.call('HDEL', KEYS[1], 'h:' .. ARGV[1]) " +
+            "redis.call('HINCRBY', KEYS[1], 'total', -tonumber(amount)) " +
+            "return tonumber(amount)";
+
+    //capture 중인 홀드는 만료로 풀리지 않도록 "c:" 로 옮김 (합계는 그대로)
+    private static final String CLAIM_SCRIPT =
+            "local amount = redis.call('HGET', KEYS[1], 'h:' .. ARGV[1]) " +
+            "if not amount then return -1 end " +
+            "redis.call('HDEL', KEYS[1], 'h:' .. ARGV[1]) " +
+            "redis.call('HSET', KEYS[1], 'c:' .. ARGV[1], amount) " +
+            "redis.call('ZREM', KEYS[2], ARGV[2]) " +
+            "return tonumber(amount)";
+
+    private static final String COMPLETE_SCRIPT =
+            "local amount = redis.call('HGET', KEYS[1], 'c:' .. ARGV[1]) " +
+            "if not amount then return 0 end " +
+            "redis.call('HDEL', KEYS[1], 'c:' .. ARGV[1]) " +
+            "redis.call('HINCRBY', KEYS[1], 'total', -tonumber(amount)) " +
+            "return tonumber(amount)";
+
+    private static final String UNCLAIM_SCRIPT =
+            "local amount = redis.call('HGET', KEYS[1], 'c:' .. ARGV[1]) " +
+            "if not amount then return 0 end " +
+            "redis.call('HDEL', KEYS[1], 'c:' .. ARGV[1]) " +
+            "redis.call('HSET', KEYS[1], 'h:' .. ARGV[1], amount) " +
+            "redis.call('ZADD', KEYS[2], ARGV[3], ARGV[2]) " +
+            "return tonumber(amount)";
+
+    private final RedissonClient redissonClient;
+
+    //계좌의 홀드 금액 합계 (capture 중인 금액 포함)
+    public long getHeldAmount(String accountNumber) {
+        String total = redissonClient.<String, String>getMap(getKey(accountNumber), StringCodec.INSTANCE)
+                .get("total");
+        return total == null ? 0L : Long.parseLong(total);
+    }
+
+    public void add(String accountNumber, String holdId, long amount, long expiresAtMillis) {
+        run(ADD_SCRIPT, accountNumber, holdId, String.valueOf(amount),
+                String.valueOf(expiresAtMillis), getMember(accountNumber, holdId));
+    }
+
+    //풀린 금액, 이미 없으면 0
+    public long release(String accountNumber, String holdId) {
+        return run(RELEASE_SCRIPT, accountNumber, holdId, getMember(accountNumber, holdId));
+    }
+
+    //capture 할 홀드 금액, 없으면(만료, 이미 capture) empty
+    public Optional<Long> claim(String accountNumber, String holdId) {
+        long amount = run(CLAIM_SCRIPT, accountNumber, holdId, getMember(accountNumber, holdId));
+        return amount < 0 ? Optional.empty() : Optional.of(amount);
+    }
+
+    public void complete(String accountNumber, String holdId) {
+        run(COMPLETE_SCRIPT, accountNumber, holdId);
+    }
+
+    //capture 저장이 실패한 경우 다시 홀드 상태로
+    public void unclaim(String accountNumber, String holdId, long expiresAtMillis) {
+        run(UNCLAIM_SCRIPT, accountNumber, holdId, getMember(accountNumber, holdId),
+                String.valueOf(expiresAtMillis));
+    }
+
+    //재시작시 타이머를 다시 걸기 위한 전체 홀드 만료 시각 (계좌번호, holdId, 만료시각)
+    public List<String[]> getExpirations() {
+        RScoredSortedSet<String> expiry = redissonClient.getScoredSortedSet(EXPIRY_KEY, StringCodec.INSTANCE);
+        List<String[]> expirations = new ArrayList<>();
+        for (ScoredEntry<String> entry : expiry.entryRange(0, -1)) {
+            String[] member = entry.getValue().split("\\|", 2);
+            expirations.add(new String[]{member[0], member[1], String.valueOf(entry.getScore().longValue())});
+        }
+        return expirations;
+    }
+
+    //만료 시각이 지난 홀드 (계좌번호, holdId), 오래된 순으로 최대 limit 개
+    public List<String[]> getExpired(long nowMillis, int limit) {
+        RScoredSortedSet<String> expiry = redissonClient.getScoredSortedSet(EXPIRY_KEY, StringCodec.INSTANCE);
+        List<String[]> expired = new ArrayList<>();
+        for (String member : expiry.valueRange(Double.NEGATIVE_INFINITY, true, nowMillis, true, 0, limit)) {
+            expired.add(member.split("\\|", 2));
+        }
+        return expired;
+    }
+
+    private long run(String script, String accountNumber, Object... args) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                script, RScript.ReturnType.INTEGER,
+                Arrays.asList(getKey(accountNumber), EXPIRY_KEY), args);
+        return result == null ? 0L : result;
+    }
+
+    private String getKey(String accountNumber) {
+        return "AHLD:" + accountNumber;
+    }
+
+    private String getMember(String accountNumber, String holdId) {
+        return accountNumber + "|" + holdId;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.SubBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.SubBalanceRepository;
+import com.example.account.type.BalanceMutationMode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * hot 계좌 칸 잔액을 주기적으로 고르게 맞춘다. (LOCK 모드 전용)
+ * 락 없이 먼저 읽어보고 치우쳐 있을때만 계좌 락 + 모든 칸 락을 잡고 다시 나눈다.
+ * 돌때마다 hot 계좌 목록도 다시 읽어서 다른 노드에서 지정된 hot 계좌를 반영한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotAccountRebalancer {
+    private final AccountRepository accountRepository;
+    private final SubBalanceRepository subBalanceRepository;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final LockService lockService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    @Value("${account.hot-account.rebalance-interval-ms:1000}")
+    private long rebalanceIntervalMs = 1000L;
+
+    //가장 많은 칸과 가장 적은 칸의 차이가 평균의 이 비율(%)을 넘으면 다시 나눔
+    @Value("${account.hot-account.rebalance-threshold-percent:50}")
+    private long rebalanceThresholdPercent = 50L;
+
+    private Thread rebalancer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (balanceMutationMode != BalanceMutationMode.LOCK) {
+            return;
+        }
+        running = true;
+        rebalancer = new Thread(this::rebalanceLoop, "hot-account-rebalancer");
+        rebalancer.setDaemon(true);
+        rebalancer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (rebalancer == null) {
+            return;
+        }
+        running = false;
+        rebalancer.interrupt();
+        rebalancer.join();
+    }
+
+    private void rebalanceLoop() {
+        while (running) {
+            try {
+                rebalanceAll();
+                Thread.sleep(rebalanceIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Hot account rebalance failed", e);
+            }
+        }
+    }
+
+    void rebalanceAll() {
+        List<Account> hotAccounts = accountRepository.findByHotTrue();
+        hotAccountRegistry.refresh(hotAccounts);
+        for (Account account : hotAccounts) {
+            List<SubBalance> subBalances = subBalanceRepository.findByAccountIdOrderBySlot(account.getId());
+            subBalances.forEach(subBalance -> hotAccountRegistry.updateHint(account.getAccountNumber(), subBalance));
+            if (isSkewed(account, subBalances)) {
+                rebalance(account);
+            }
+        }
+    }
+
+    boolean isSkewed(Account account, List<SubBalance> subBalances) {
+        if (account.getBalance() > 0) {
+            //계좌 row 에 남은 잔액도 칸으로 옮김
+            return true;
+        }
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (SubBalance subBalance : subBalances) {
+            total += subBalance.getBalance();
+            min = Math.min(min, subBalance.getBalance());
+            max = Math.max(max, subBalance.getBalance());
+        }
+        if (subBalances.isEmpty() || total == 0) {
+            return false;
+        }
+        long average = total / subBalances.size();
+        return (max - min) * 100 > Math.max(average, 1L) * rebalanceThresholdPercent;
+    }
+
+    private void rebalance(Account account) {
+        String accountNumber = account.getAccountNumber();
+        try {
+            lockService.lock(accountNumber);
+        } catch (AccountException e) {
+            //사용중이면 다음 주기에
+            return;
+        }
+        List<Integer> lockedSlots = new ArrayList<>();
+        try {
+            for (int slot = 0; slot < account.getSubBalanceSlots(); slot++) {
+                if (!lockService.tryLockSlot(accountNumber, slot, 100L)) {
+                    return;
+                }
+                lockedSlots.add(slot);
+            }
+            //커밋이 끝난 뒤에 락을 푼다
+            transactionTemplate.executeWithoutResult(status -> redistribute(account.getId()));
+        } finally {
+            lockedSlots.forEach(slot -> lockService.unlockSlot(accountNumber, slot));
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private void redistribute(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(IllegalStateException::new);
+        List<SubBalance> subBalances = subBalanceRepository.findByAccountIdOrderBySlot(accountId);
+
+        long total = account.getBalance();
+        for (SubBalance subBalance : subBalances) {
+            total += subBalance.getBalance();
+        }
+        account.setBalance(0L);
+        for (SubBalance subBalance : subBalances) {
+            subBalance.setBalance(HotAccountService.evenShare(total, subBalances.size(), subBalance.getSlot()));
+            hotAccountRegistry.updateHint(account.getAccountNumber(), subBalance);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.SubBalance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * 이 노드가 알고있는 hot 계좌 목록과 칸별 잔액 추정치
+ * 락 aspect 는 여기서 hot 여부만 보고 계좌 락을 건너뛴다. (실제 차감은 DB 의 hot 플래그 + 칸 락 기준)
+ * 다른 노드에서 지정된 hot 계좌는 rebalancer 가 주기적으로 다시 읽어서 반영한다.
+ */
+@Component
+public class HotAccountRegistry {
+    private final Map<String, AtomicLongArray> balanceHints = new ConcurrentHashMap<>();
+
+    public boolean isHot(String accountNumber) {
+        return balanceHints.containsKey(accountNumber);
+    }
+
+    public void register(Account account) {
+        balanceHints.computeIfAbsent(account.getAccountNumber(),
+                accountNumber -> new AtomicLongArray(account.getSubBalanceSlots()));
+    }
+
+    public void refresh(List<Account> hotAccounts) {
+        hotAccounts.forEach(this::register);
+        Set<String> accountNumbers = hotAccounts.stream()
+                .map(Account::getAccountNumber)
+                .collect(Collectors.toSet());
+        balanceHints.keySet().retainAll(accountNumbers);
+    }
+
+    //칸 잔액 추정치, 모르면 0
+    public long getHint(String accountNumber, int slot) {
+        AtomicLongArray hints = balanceHints.get(accountNumber);
+        return hints == null || slot >= hints.length() ? 0L : hints.get(slot);
+    }
+
+    public void updateHint(String accountNumber, SubBalance subBalance) {
+        AtomicLongArray hints = balanceHints.get(accountNumber);
+        if (hints != null && subBalance.getSlot() < hints.length()) {
+            hints.set(subBalance.getSlot(), subBalance.getBalance());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.SubBalance;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.SubBalanceRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * hot 계좌 잔액 처리 (LOCK 모드 전용)
+ * 계좌 락("ACLK:"+계좌번호) 대신 칸 락("ACLK:"+계좌번호+":"+칸)을 잡고 그 칸의 SubBalance row 만 바꾼다.
+ * 칸 락은 DB 커밋 후(afterCompletion)에 풀린다.
+ * 차감할 칸이 모자라면 다른 칸 락을 더 잡아서 빌려온다.
+ */
+@Service
+@RequiredArgsConstructor
+public class HotAccountService {
+    private final AccountRepository accountRepository;
+    private final SubBalanceRepository subBalanceRepository;
+    private final HotAccountRegistry hotAccountRegistry;
+    private final LockService lockService;
+    private final HoldService holdService;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    //다른 칸에서 빌려올때 칸 락을 기다리는 시간
+    @Value("${account.hot-account.slot-lock-wait-ms:1000}")
+    private long slotLockWaitMs = 1000L;
+
+    public boolean isEnabled() {
+        return balanceMutationMode == BalanceMutationMode.LOCK;
+    }
+
+    /**
+     * 계좌 락을 잡은 상태에서 잔액을 칸들로 옮기고 hot 계좌로 지정
+     * hot 계좌의 사용/capture 는 홀드 합계를 보지 않으므로 홀드가 남아있으면 거절한다.
+     * 계좌 락 없이 호출되면 진행중인 사용/취소의 차감을 덮어쓸 수 있으므로 실패한다.
+     */
+    @Transactional
+    public AccountDto makeHot(String accountNumber, int slots) {
+        if (!isEnabled()) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (account.isHot()) {
+            return AccountDto.fromEntity(account);
+        }
+        //이미 hot 인 계좌는 LockAopAspect 가 계좌 락을 건너뛰므로 위에서 먼저 돌려줌
+        if (!lockService.isHeldByCurrentThread(accountNumber)) {
+            throw new IllegalStateException("makeHot must run under the account lock");
+        }
+        //새 홀드는 계좌 락 안에서만 생기므로 락을 잡은 동안은 0 으로 유지됨
+        if (holdService.getHeldAmount(accountNumber) > 0) {
+            throw new AccountException(ErrorCode.ACCOUNT_HAS_HOLDS);
+        }
+
+        long total = account.getBalance();
+        List<SubBalance> subBalances = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            subBalances.add(SubBalance.builder()
+                    .account(account)
+                    .slot(slot)
+                    .balance(evenShare(total, slots, slot))
+                    .build());
+        }
+        subBalanceRepository.saveAll(subBalances);
+
+        account.setBalance(0L);
+        account.setHot(true);
+        account.setSubBalanceSlots(slots);
+
+        afterCommit(() -> hotAccountRegistry.register(account));
+
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        accountDto.setBalance(total);
+        return accountDto;
+    }
+
+    /**
+     * 칸에서 차감하고 차감 후 계좌 전체 잔액(getBalance, 근사값)을 리턴
+     * 호출하는 쪽의 트랜잭션 안에서 실행되어야 한다.
+     */
+    public Long useBalance(Account account, Long amount) {
+        List<Integer> lockedSlots = new ArrayList<>();
+        releaseSlotLocksAfterCompletion(account.getAccountNumber(), lockedSlots);
+
+        int slots = account.getSubBalanceSlots();
+        int first = lockPreferredSlot(account.getAccountNumber(), slots, amount);
+        lockedSlots.add(first);
+
+        long remaining = amount - take(account, first, amount);
+        //모자라면 다음 칸부터 빌려옴
+        for (int i = 1; i < slots && remaining > 0; i++) {
+            int slot = (first + i) % slots;
+            if (!lockService.tryLockSlot(account.getAccountNumber(), slot, slotLockWaitMs)) {
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            lockedSlots.add(slot);
+            remaining -= take(account, slot, remaining);
+        }
+        if (remaining > 0) {
+            //트랜잭션이 롤백되면서 칸에서 꺼낸 금액도 되돌아감
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        return getBalance(account);
+    }
+
+    //칸 하나에 더하고 취소 후 계좌 전체 잔액(getBalance, 근사값)을 리턴
+    public Long cancelBalance(Account account, Long amount) {
+        if (amount < 0) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        List<Integer> lockedSlots = new ArrayList<>();
+        releaseSlotLocksAfterCompletion(account.getAccountNumber(), lockedSlots);
+
+        int slot = lockPreferredSlot(account.getAccountNumber(), account.getSubBalanceSlots(), 0L);
+        lockedSlots.add(slot);
+
+        SubBalance subBalance = getSubBalance(account, slot);
+        subBalance.setBalance(subBalance.getBalance() + amount);
+        hotAccountRegistry.updateHint(account.getAccountNumber(), subBalance);
+        return getBalance(account);
+    }
+
+    //계좌 row 잔액 + 칸 합계 (칸 락 없이 읽으므로 동시에 다른 칸이 바뀌는 중이면 근사값)
+    public Long getBalance(Account account) {
+        return account.getBalance() + subBalanceRepository.sumBalance(account.getId());
+    }
+
+    /**
+     * 잔액이 충분해 보이는 칸 중 비어있는 칸 락을 기다리지 않고 잡는다.
+     * 없으면 아무 비어있는 칸, 그래도 없으면 임의의 칸을 기다린다.
+     */
+    private int lockPreferredSlot(String accountNumber, int slots, long amount) {
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            if (hotAccountRegistry.getHint(accountNumber, slot) >= amount
+                    && lockService.tryLockSlot(accountNumber, slot, 0L)) {
+                return slot;
+            }
+        }
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            if (lockService.tryLockSlot(accountNumber, slot, 0L)) {
+                return slot;
+            }
+        }
+        if (lockService.tryLockSlot(accountNumber, start, slotLockWaitMs)) {
+            return start;
+        }
+        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+
+    private long take(Account account, int slot, long amount) {
+        SubBalance subBalance = getSubBalance(account, slot);
+        long taken = subBalance.take(amount);
+        hotAccountRegistry.updateHint(account.getAccountNumber(), subBalance);
+        return taken;
+    }
+
+    private SubBalance getSubBalance(Account account, int slot) {
+        return subBalanceRepository.findByAccountIdAndSlot(account.getId(), slot)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    private void releaseSlotLocksAfterCompletion(String accountNumber, List<Integer> lockedSlots) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hot account balance must change in a transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lockedSlots.forEach(slot -> lockService.unlockSlot(accountNumber, slot));
+            }
+        });
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    //total 을 slots 칸에 고르게, 나머지는 앞 칸부터 1씩
+    static long evenShare(long total, int slots, int slot) {
+        return total / slots + (slot < total % slots ? 1 : 0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로컬 stripe 락을 먼저 잡고, 그 다음 Redis 락을 잡는다.
+ * 같은 노드로 들어온 같은 계좌의 요청은 JVM 안에서 줄을 서고,
+ * Redis 락은 노드 간 경쟁에만 쓰이게 된다.
+ */
+@RequiredArgsConstructor
+public class HybridLockBackend implements LockBackend {
+    private final LocalLockBackend localLockBackend;
+    private final RedisLockBackend redisLockBackend;
+
+    @Override
+    public boolean tryLock(String lockKey, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        if (!localLockBackend.tryLock(lockKey, waitTime, leaseTime, unit)) {
+            return false;
+        }
+
+        boolean acquired = false;
+        try {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            acquired = redisLockBackend.tryLock(lockKey, remaining, unit.toNanos(leaseTime), TimeUnit.NANOSECONDS);
+            return acquired;
+        } finally {
+            //redis 락을 못잡았으면 로컬 락도 바로 놓아준다
+            if (!acquired) {
+                localLockBackend.unlock(lockKey);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(String lockKey) {
+        try {
+            redisLockBackend.unlock(lockKey);
+        } finally {
+            localLockBackend.unlock(lockKey);
+        }
+    }
+
+    //노드 간 경쟁은 Redis 락이 막으므로 Redis 락 기준
+    @Override
+    public boolean isHeldByCurrentThread(String lockKey) {
+        return redisLockBackend.isHeldByCurrentThread(lockKey);
+    }
+
+    @Override
+    public boolean tryLockAll(List<String> lockKeys, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        if (!localLockBackend.tryLockAll(lockKeys, waitTime, leaseTime, unit)) {
+            return false;
+        }
+
+        boolean acquired = false;
+        try {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            acquired = redisLockBackend.tryLockAll(lockKeys, remaining, unit.toNanos(leaseTime), TimeUnit.NANOSECONDS);
+            return acquired;
+        } finally {
+            if (!acquired) {
+                localLockBackend.unlockAll(lockKeys);
+            }
+        }
+    }
+
+    @Override
+    public void unlockAll(List<String> lockKeys) {
+        try {
+            redisLockBackend.unlockAll(lockKeys);
+        } finally {
+            localLockBackend.unlockAll(lockKeys);
+        }
+    }
+}
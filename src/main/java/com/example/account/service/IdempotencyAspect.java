@@ -0,0 +1,181 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.BalanceAdmissionInterface;
+import com.example.account.aop.MultiAccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Idempotency-Key 가 같은 재시도 요청은 첫 요청의 응답(또는 에러)을 그대로 돌려준다.
+ * 계좌 락보다 먼저 실행되므로 (@Order) 재시도는 락과 DB 를 전혀 건드리지 않는다.
+ * 같은 키로 동시에 들어온 요청은 첫 요청이 끝날때까지 기다린다.
+ * (같은 노드 -> 로컬 future, 다른 노드 -> Redis PENDING 키 polling)
+ * 키는 사용자/계좌 단위로 나누고, 요청 본문이 첫 요청과 다르면 응답을 돌려주지 않고 거절한다.
+ */
+@Aspect
+@Component
+@Slf4j
+@Order(1)
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    //다시 실행하면 결과가 달라지는 오류 -> 저장하지 않고 재시도가 실행되도록 키를 지움
+    private static final Set<ErrorCode> TRANSIENT_ERRORS = EnumSet.of(
+            ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+            ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS,
+            ErrorCode.INTERNAL_SERVER_ERROR);
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${account.idempotency.wait-timeout-ms:5000}")
+    private long waitTimeoutMs = 5000L;
+
+    private final Map<String, CompletableFuture<IdempotentResult>> inFlight = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.example.account.aop.Idempotent) && args(request, idempotencyKey)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            Object request,
+            String idempotencyKey
+    ) throws Throwable {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return pjp.proceed();
+        }
+        //사용/취소가 같은 키를 써도 섞이지 않도록 메소드 이름을 붙이고
+        //다른 사용자가 같은 키를 골라도 남의 응답을 받지 않도록 사용자/계좌를 붙임
+        String key = pjp.getSignature().getName() + ":" + scopeOf(request) + ":" + idempotencyKey;
+        String requestHash = hash(request);
+        Class<?> responseType = ((MethodSignature) pjp.getSignature()).getReturnType();
+
+        Optional<IdempotentResult> done = idempotencyStore.find(key);
+        if (done.isPresent()) {
+            return replay(done.get(), requestHash, responseType);
+        }
+
+        CompletableFuture<IdempotentResult> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotentResult> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return replay(awaitLocal(running), requestHash, responseType);
+        }
+
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+            while (true) {
+                if (idempotencyStore.tryBegin(key)) {
+                    return proceedAndStore(pjp, key, requestHash, mine);
+                }
+                //다른 노드에서 처리중
+                Optional<IdempotentResult> result = idempotencyStore.awaitResult(key, deadline);
+                if (result.isPresent()) {
+                    mine.complete(result.get());
+                    return replay(result.get(), requestHash, responseType);
+                }
+            }
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Object proceedAndStore(
+            ProceedingJoinPoint pjp,
+            String key,
+            String requestHash,
+            CompletableFuture<IdempotentResult> mine
+    ) throws Throwable {
+        Object response;
+        try {
+            response = pjp.proceed();
+        } catch (AccountException e) {
+            if (isTransient(e)) {
+                idempotencyStore.abandon(key);
+                throw e;
+            }
+            //비지니스 오류도 같은 응답을 돌려줘야 F 거래가 또 쌓이지 않음
+            IdempotentResult result = IdempotentResult.failure(requestHash, e.getErrorCode());
+            idempotencyStore.complete(key, result);
+            mine.complete(result);
+            throw e;
+        } catch (Throwable t) {
+            idempotencyStore.abandon(key);
+            throw t;
+        }
+
+        IdempotentResult result = IdempotentResult.success(
+                requestHash, objectMapper.writeValueAsString(response));
+        idempotencyStore.complete(key, result);
+        mine.complete(result);
+        return response;
+    }
+
+    //락 대기 초과, 같은 키 처리중, 오래된 스냅샷으로 거절된 경우
+    private static boolean isTransient(AccountException e) {
+        return e.isProvisional() || TRANSIENT_ERRORS.contains(e.getErrorCode());
+    }
+
+    private IdempotentResult awaitLocal(CompletableFuture<IdempotentResult> running) throws Throwable {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AccountException(ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String scopeOf(Object request) {
+        if (request instanceof BalanceAdmissionInterface) {
+            BalanceAdmissionInterface admission = (BalanceAdmissionInterface) request;
+            return admission.getUserId() + ":" + admission.getAccountNumber();
+        }
+        if (request instanceof AccountLockIdInterface) {
+            return ((AccountLockIdInterface) request).getAccountNumber();
+        }
+        if (request instanceof MultiAccountLockIdInterface) {
+            //순서가 달라도 같은 계좌 묶음이면 같은 범위
+            return String.join(",", new TreeSet<>(
+                    ((MultiAccountLockIdInterface) request).getLockAccountNumbers()));
+        }
+        return "";
+    }
+
+    //요청 본문 JSON 의 SHA-256
+    private String hash(Object request) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsBytes(request));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private Object replay(
+            IdempotentResult result,
+            String requestHash,
+            Class<?> responseType
+    ) throws Exception {
+        //같은 키로 금액, 계좌 등이 다른 요청 -> 첫 요청의 응답을 주면 안됨
+        if (!requestHash.equals(result.getRequestHash())) {
+            throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        if (result.getErrorCode() != null) {
+            throw new AccountException(result.getErrorCode());
+        }
+        return objectMapper.readValue(result.getBody(), responseType);
+    }
+}
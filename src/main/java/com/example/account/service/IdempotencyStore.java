@@ -0,0 +1,128 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idempotency-Key 결과 저장소
+ * 노드 안에서는 크기 제한이 있는 Caffeine near cache, 노드 간에는 TTL 이 있는 Redis 키("IDEM:")로 공유한다.
+ * 처리중인 키는 Redis 에 PENDING 표시를 먼저 넣어서(SET NX) 하나의 요청만 실행되도록 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+    private static final String PENDING = "PENDING";
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${account.idempotency.near-cache-size:10000}")
+    private long nearCacheSize = 10000L;
+
+    @Value("${account.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds = 86400L;
+
+    //처리하던 노드가 죽어도 키가 영원히 막히지 않도록
+    @Value("${account.idempotency.pending-ttl-seconds:30}")
+    private long pendingTtlSeconds = 30L;
+
+    @Value("${account.idempotency.poll-interval-ms:10}")
+    private long pollIntervalMs = 10L;
+
+    private Cache<String, IdempotentResult> nearCache;
+
+    @PostConstruct
+    public void init() {
+        nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public Optional<IdempotentResult> find(String key) {
+        IdempotentResult cached = nearCache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return Optional.ofNullable(getBucket(key).get())
+                .filter(value -> !PENDING.equals(value))
+                .map(value -> cacheLocally(key, value));
+    }
+
+    //이 키를 처음 처리하는 요청이면 true
+    public boolean tryBegin(String key) {
+        return getBucket(key).trySet(PENDING, pendingTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    public void complete(String key, IdempotentResult result) {
+        nearCache.put(key, result);
+        getBucket(key).set(write(result), ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    //예상못한 오류로 끝난 요청 -> 재시도가 다시 실행될 수 있게 지움
+    public void abandon(String key) {
+        getBucket(key).delete();
+    }
+
+    /**
+     * 다른 요청이 처리중인 키의 결과를 기다린다.
+     * 그 사이 키가 없어지면(abandon, pending TTL 만료) empty -> 호출하는 쪽에서 다시 tryBegin
+     */
+    public Optional<IdempotentResult> awaitResult(String key, long deadlineNanos) throws InterruptedException {
+        RBucket<String> bucket = getBucket(key);
+        while (true) {
+            String value = bucket.get();
+            if (value == null) {
+                return Optional.empty();
+            }
+            if (!PENDING.equals(value)) {
+                return Optional.of(cacheLocally(key, value));
+            }
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                throw new AccountException(ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+            }
+            Thread.sleep(pollIntervalMs);
+        }
+    }
+
+    private IdempotentResult cacheLocally(String key, String value) {
+        IdempotentResult result = read(value);
+        nearCache.put(key, result);
+        return result;
+    }
+
+    private RBucket<String> getBucket(String key) {
+        return redissonClient.getBucket("IDEM:" + key, StringCodec.INSTANCE);
+    }
+
+    private String write(IdempotentResult result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private IdempotentResult read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotentResult.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.account.service;
+
+import com.example.account.type.ErrorCode;
+import lombok.*;
+
+/**
+ * Idempotency-Key 로 저장해두는 첫 요청의 결과
+ * 성공이면 응답 JSON, 비지니스 오류(AccountException)였으면 에러코드
+ * 요청 본문의 해시를 같이 둬서 같은 키로 다른 요청이 오면 돌려주지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotentResult {
+    private String requestHash;
+    private String body;
+    private ErrorCode errorCode;
+
+    public static IdempotentResult success(String requestHash, String body) {
+        return new IdempotentResult(requestHash, body, null);
+    }
+
+    public static IdempotentResult failure(String requestHash, ErrorCode errorCode) {
+        return new IdempotentResult(requestHash, null, errorCode);
+    }
+}
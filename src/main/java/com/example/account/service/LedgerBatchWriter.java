@@ -0,0 +1,47 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.*;
+
+/**
+ * 여러 요청의 거래 row 와 계좌 잔액을 하나의 DB 트랜잭션으로 저장한다.
+ * 계좌는 한번의 조회로 가져오고, 같은 계좌가 여러번 나오면 마지막 잔액이 반영된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerBatchWriter {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    @Transactional
+    public void write(List<LedgerEntry> entries) {
+        Map<Long, Long> newBalances = new LinkedHashMap<>();
+        for (LedgerEntry entry : entries) {
+            if (entry.getNewBalance() != null) {
+                newBalances.put(entry.getAccountId(), entry.getNewBalance());
+            }
+        }
+
+        Map<Long, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllById(newBalances.keySet())) {
+            account.setBalance(newBalances.get(account.getId()));
+            accounts.put(account.getId(), account);
+        }
+
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            Transaction transaction = entry.getTransaction();
+            //잔액을 안바꾸는 계좌는 조회없이 프록시로만 연결
+            transaction.setAccount(accounts.computeIfAbsent(entry.getAccountId(), accountRepository::getById));
+            transactions.add(transaction);
+        }
+        transactionRepository.saveAll(transactions);
+    }
+}
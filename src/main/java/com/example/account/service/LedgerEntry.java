@@ -0,0 +1,20 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import lombok.*;
+
+/**
+ * 한 번에 모아서 저장할 거래 row 와 (있다면) 그 계좌의 새 잔액
+ * newBalance 가 null 이면 잔액은 건드리지 않고 거래 row 만 저장한다. (실패 거래 등)
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntry {
+    private Transaction transaction;
+    private Long accountId;
+    private String accountNumber;
+    private Long newBalance;
+}
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM 내부 striped ReentrantLock
+ * 락 키를 해시해서 고정된 개수의 ReentrantLock 중 하나에 매핑한다.
+ * 같은 노드 안에서만 유효하고, leaseTime은 쓰지 않는다. (락은 잡은 쓰레드가 해제해야 함)
+ */
+public class LocalLockBackend implements LockBackend {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public LocalLockBackend(int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    @Override
+    public boolean tryLock(String lockKey, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        return stripeOf(lockKey).tryLock(waitTime, unit);
+    }
+
+    @Override
+    public void unlock(String lockKey) {
+        stripeOf(lockKey).unlock();
+    }
+
+    //같은 stripe 의 다른 키를 잡고 있어도 true
+    @Override
+    public boolean isHeldByCurrentThread(String lockKey) {
+        return stripeOf(lockKey).isHeldByCurrentThread();
+    }
+
+    /**
+     * 서로 다른 키가 같은 stripe 에 걸릴 수 있으므로 키 순서가 아니라 stripe 번호 순서로 잡는다.
+     */
+    @Override
+    public boolean tryLockAll(List<String> lockKeys, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        int[] indexes = stripeIndexes(lockKeys);
+        int locked = 0;
+        try {
+            for (; locked < indexes.length; locked++) {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                if (!stripes[indexes[locked]].tryLock(remaining, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            }
+        } finally {
+            if (locked < indexes.length) {
+                //못잡았거나 기다리다 인터럽트 -> 잡은 것만 역순으로 놓음
+                for (int i = locked - 1; i >= 0; i--) {
+                    stripes[indexes[i]].unlock();
+                }
+            }
+        }
+        return locked == indexes.length;
+    }
+
+    @Override
+    public void unlockAll(List<String> lockKeys) {
+        int[] indexes = stripeIndexes(lockKeys);
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    private int[] stripeIndexes(List<String> lockKeys) {
+        return lockKeys.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    int stripeIndex(String lockKey) {
+        int h = lockKey.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private ReentrantLock stripeOf(String lockKey) {
+        return stripes[stripeIndex(lockKey)];
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.account.service;
 
 import com.example.account.aop.AccountLockIdInterface;
-import com.example.account.dto.UseBalance;
+import com.example.account.aop.MultiAccountLockIdInterface;
+import com.example.account.type.BalanceMutationMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Aspect
@@ -15,23 +17,69 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class LockAopAspect {
     private final LockService lockService;
+    private final AccountSerialExecutor accountSerialExecutor;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final HotAccountRegistry hotAccountRegistry;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
 
     //어떤경우에 적용할지 어노테이션이용
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request, ..)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
             AccountLockIdInterface request
     ) throws Throwable {
+        if (accountSerialExecutor.isEnabled()) {
+            //같은 계좌 요청은 같은 워커 쓰레드에서 순서대로 -> 노드 안에서는 락 경쟁이 생기지 않음
+            return accountSerialExecutor.execute(request.getAccountNumber(),
+                    () -> proceedWithLock(pjp, request.getAccountNumber()));
+        }
+        return proceedWithLock(pjp, request.getAccountNumber());
+    }
+
+    /**
+     * 여러 계좌를 건드리는 요청 (이체)
+     * 계좌별 워커로 보낼 수 없으므로 serial-executor 와 상관없이 요청 쓰레드에서 모든 계좌 락을 한번에 잡는다.
+     */
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request, ..)")
+    public Object aroundMultiAccountMethod(
+            ProceedingJoinPoint pjp,
+            MultiAccountLockIdInterface request
+    ) throws Throwable {
+        if (!balanceMutationMode.requiresAccountLock()) {
+            //락을 쓰지 않는 모드는 @Version 충돌시 재시도 (조건부 UPDATE 도 version 을 올림)
+            return optimisticRetryExecutor.execute(pjp::proceed);
+        }
+        lockService.lockAll(request.getLockAccountNumbers());
+        try {
+            return pjp.proceed();
+        } finally {
+            lockService.unlockAll(request.getLockAccountNumbers());
+        }
+    }
+
+    private Object proceedWithLock(ProceedingJoinPoint pjp, String accountNumber) throws Throwable {
+        if (balanceMutationMode == BalanceMutationMode.OPTIMISTIC) {
+            //락 대신 @Version 충돌시 재시도
+            return optimisticRetryExecutor.execute(pjp::proceed);
+        }
+        if (!balanceMutationMode.requiresAccountLock()) {
+            //잔액 변경 자체가 원자적인 모드 -> 락 없이 진행
+            return pjp.proceed();
+        }
+        if (hotAccountRegistry.isHot(accountNumber)) {
+            //hot 계좌는 계좌 락 대신 서비스에서 sub-balance 칸 락을 잡음
+            return pjp.proceed();
+        }
         //lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        lockService.lock(accountNumber);
         try {
-            Thread.sleep(3000L);
             return pjp.proceed();
         } finally {
             //lock 해제
-            lockService.unlock(request.getAccountNumber());
+            lockService.unlock(accountNumber);
         }
-
     }
 
 }
@@ -0,0 +1,25 @@
+package com.example.account.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 락을 실제로 잡아주는 저장소(백엔드)
+ * LockService는 이 인터페이스만 보고 락을 잡고 해제한다.
+ */
+public interface LockBackend {
+    boolean tryLock(String lockKey, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException;
+
+    void unlock(String lockKey);
+
+    /**
+     * 여러 락을 한번에 잡는다. 하나라도 못잡으면 잡은 락을 모두 놓고 false
+     * lockKeys 는 정렬된 순서로 넘어온다. -> 모든 요청이 같은 순서로 잡으므로 서로 기다리며 멈추지 않음
+     */
+    boolean tryLockAll(List<String> lockKeys, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException;
+
+    void unlockAll(List<String> lockKeys);
+
+    //지금 쓰레드가 이 락을 잡고 있는지
+    boolean isHeldByCurrentThread(String lockKey);
+}
@@ -4,38 +4,97 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    //redis, local, hybrid 중 설정된 백엔드가 주입됨 -> LockBackendConfig
+    private final LockBackend lockBackend;
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
         log.debug("Trying lock for accountNumber : {}", accountNumber);
 
         try {
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
+            boolean isLock = lockBackend.tryLock(getLockKey(accountNumber), 1, 15, TimeUnit.SECONDS);
             if(!isLock) {
                 log.error("======Lock acquisition failed=====");
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
-        } catch (AccountException e){
-            throw e;
-        }catch (Exception e) {
+        } catch (InterruptedException e) {
+            //락 없이 진행하면 unlock 에서 IllegalMonitorStateException -> 인터럽트 표시를 남기고 실패
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
             log.error("Redis lock failed", e);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }
     }
 
     public void unlock(String accountNumber) {
         log.debug("Unlock for accountNumber: {}",  accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        lockBackend.unlock(getLockKey(accountNumber));
+    }
+
+    public boolean isHeldByCurrentThread(String accountNumber) {
+        return lockBackend.isHeldByCurrentThread(getLockKey(accountNumber));
+    }
+
+    /**
+     * 여러 계좌 락을 계좌번호 순서로 한번에 잡는다. (이체)
+     * 모든 요청이 같은 순서로 잡기 때문에 A->B, B->A 이체가 동시에 와도 서로 기다리며 멈추지 않는다.
+     */
+    public void lockAll(Collection<String> accountNumbers) {
+        log.debug("Trying lock for accountNumbers : {}", accountNumbers);
+
+        try {
+            boolean isLock = lockBackend.tryLockAll(getLockKeys(accountNumbers), 5, 15, TimeUnit.SECONDS);
+            if (!isLock) {
+                log.error("======Multi account lock acquisition failed=====");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    public void unlockAll(Collection<String> accountNumbers) {
+        log.debug("Unlock for accountNumbers: {}", accountNumbers);
+        lockBackend.unlockAll(getLockKeys(accountNumbers));
+    }
+
+    //hot 계좌의 sub-balance 칸 락 -> 잡지 못하면 예외 대신 false
+    public boolean tryLockSlot(String accountNumber, int slot, long waitMillis) {
+        try {
+            return lockBackend.tryLock(getSlotLockKey(accountNumber, slot),
+                    waitMillis, 15_000L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void unlockSlot(String accountNumber, int slot) {
+        lockBackend.unlock(getSlotLockKey(accountNumber, slot));
+    }
+
+    private String getSlotLockKey(String accountNumber, int slot) {
+        return getLockKey(accountNumber) + ":" + slot;
+    }
+
+    List<String> getLockKeys(Collection<String> accountNumbers) {
+        return accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .map(this::getLockKey)
+                .collect(Collectors.toList());
     }
 
     private String getLockKey(String accountNumber) {
@@ -0,0 +1,184 @@
+package com.example.account.service;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * long -> long open addressing (linear probing) 맵. 박싱 없이 칸 하나에 16바이트
+ * 키 0 은 빈 칸 표시라 넣을 수 없고, 값 -1 은 없음(NO_VALUE) 표시라 넣을 수 없다.
+ * 삭제는 지원하지 않음
+ * 읽기는 StampedLock 낙관적 읽기 (쓰기와 겹쳤을때만 읽기 락), 쓰기와 확장은 쓰기 락
+ * 테이블 크기는 2의 제곱이 아니라 필요한 만큼 (fastrange 로 칸 선택) -> 미리 크기를 정하면 빈 칸 낭비가 적음
+ */
+final class LongLongHashMap {
+    static final long NO_VALUE = -1L;
+    private static final double LOAD_FACTOR = 0.75;
+    private static final double GROWTH_FACTOR = 1.5;
+    private static final int MIN_CAPACITY = 16;
+    //배열 헤더 2개 + 테이블 객체
+    private static final int OVERHEAD_BYTES = 64;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private int size;
+
+    LongLongHashMap(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    long get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        long value = table.find(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = table.find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    void put(long key, long value) {
+        checkEntry(key, value);
+        long stamp = lock.writeLock();
+        try {
+            if (table.put(key, value, false)) {
+                growIfNeeded();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //이미 있으면 그대로 두고 false
+    boolean putIfAbsent(long key, long value) {
+        checkEntry(key, value);
+        long stamp = lock.writeLock();
+        try {
+            if (!table.put(key, value, true)) {
+                return false;
+            }
+            growIfNeeded();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 미리 크기를 늘려둔다. (시작할때 전체 건수를 알고 있을때)
+     */
+    void ensureCapacity(int expectedSize) {
+        long stamp = lock.writeLock();
+        try {
+            int capacity = capacityFor(expectedSize);
+            if (capacity > table.keys.length) {
+                rehash(capacity);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    //키/값 배열이 차지하는 바이트
+    long memoryBytes() {
+        return table.keys.length * 16L + OVERHEAD_BYTES;
+    }
+
+    private void growIfNeeded() {
+        size++;
+        if (size > table.keys.length * LOAD_FACTOR) {
+            rehash((int) Math.min(Integer.MAX_VALUE - 8, (long) (table.keys.length * GROWTH_FACTOR)));
+        }
+    }
+
+    private void rehash(int capacity) {
+        Table old = table;
+        Table grown = new Table(capacity);
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != 0) {
+                grown.put(old.keys[i], old.values[i], false);
+            }
+        }
+        table = grown;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        return (int) Math.max(MIN_CAPACITY, Math.ceil(expectedSize / LOAD_FACTOR) + 1);
+    }
+
+    private static void checkEntry(long key, long value) {
+        if (key == 0 || value == NO_VALUE) {
+            throw new IllegalArgumentException("Reserved key or value");
+        }
+    }
+
+    //키와 값 배열을 한 객체로 묶어서 읽는 쪽이 항상 같은 크기의 배열 쌍을 보도록
+    private static final class Table {
+        private final long[] keys;
+        private final long[] values;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+        }
+
+        private long find(long key) {
+            int index = indexOf(key);
+            //쓰기와 겹친 낙관적 읽기에서도 끝나도록 최대 테이블 크기만큼만
+            for (int probe = 0; probe < keys.length; probe++) {
+                long found = keys[index];
+                if (found == key) {
+                    return values[index];
+                }
+                if (found == 0) {
+                    return NO_VALUE;
+                }
+                index = next(index);
+            }
+            return NO_VALUE;
+        }
+
+        //새 키를 넣었으면 true
+        private boolean put(long key, long value, boolean onlyIfAbsent) {
+            int index = indexOf(key);
+            while (keys[index] != 0) {
+                if (keys[index] == key) {
+                    if (!onlyIfAbsent) {
+                        values[index] = value;
+                    }
+                    return false;
+                }
+                index = next(index);
+            }
+            values[index] = value;
+            keys[index] = key;
+            return true;
+        }
+
+        private int indexOf(long key) {
+            //murmur3 fmix64 후 상위 32비트를 테이블 크기로 (fastrange)
+            long hash = key;
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return (int) (((hash >>> 32) * keys.length) >>> 32);
+        }
+
+        private int next(int index) {
+            return index + 1 == keys.length ? 0 : index + 1;
+        }
+    }
+}
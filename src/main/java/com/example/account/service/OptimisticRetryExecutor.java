@@ -0,0 +1,72 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * OPTIMISTIC 모드에서 @Version 충돌이 나면 지터(jitter)를 준 백오프 후 다시 실행한다.
+ * 시도/충돌/재시도/포기 횟수는 metrics 로 노출 (account.optimistic.*)
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    private final Counter attempts;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    @Value("${account.transaction.optimistic.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${account.transaction.optimistic.backoff-base-ms:5}")
+    private long backoffBaseMs = 5L;
+
+    @Value("${account.transaction.optimistic.backoff-max-ms:50}")
+    private long backoffMaxMs = 50L;
+
+    public OptimisticRetryExecutor(MeterRegistry meterRegistry) {
+        this.attempts = meterRegistry.counter("account.optimistic.attempts");
+        this.conflicts = meterRegistry.counter("account.optimistic.conflicts");
+        this.retries = meterRegistry.counter("account.optimistic.retries");
+        this.exhausted = meterRegistry.counter("account.optimistic.exhausted");
+    }
+
+    public Object execute(OptimisticTask task) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return task.run();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.error("Optimistic lock conflict. gave up after {} attempts", attempt);
+                    throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+                }
+                retries.increment();
+                Thread.sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    //full jitter : 0 ~ min(max, base * 2^(attempt-1)) 사이에서 랜덤
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    @FunctionalInterface
+    public interface OptimisticTask {
+        Object run() throws Throwable;
+    }
+}
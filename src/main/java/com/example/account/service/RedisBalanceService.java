@@ -0,0 +1,160 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.example.account.type.ErrorCode.USER_NOT_FOUND;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * REDIS 모드의 잔액 사용/취소
+ * 잔액 확인과 변경은 Redis 에서 한번에 끝내고, 거래 row 와 DB 잔액은 write-behind 로 반영한다.
+ * DB 트랜잭션을 열지 않으므로 (durability=DATABASE 에서 flush 를 기다리는 동안 커넥션을 잡고있지 않도록)
+ * 컨트롤러에서 TransactionService 대신 직접 호출한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class RedisBalanceService {
+    private final RedisBalanceStore redisBalanceStore;
+    private final RedisBalanceWriteBehind redisBalanceWriteBehind;
+    private final AccountUserCache accountUserCache;
+    private final TransactionRepository transactionRepository;
+    private final TransactionIdIssuer transactionIdIssuer;
+    private final TransactionQueryCache transactionQueryCache;
+    private final TransactionIdFilter transactionIdFilter;
+    private final AccountInfoCache accountInfoCache;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    public boolean isEnabled() {
+        return balanceMutationMode == BalanceMutationMode.REDIS;
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        RedisBalanceStore.UseResult result = redisBalanceStore.use(accountNumber, userId, amount);
+        if (!result.isSuccess()) {
+            //실패한 경우에만 DB 조회 -> 사용자가 없는 경우를 먼저 알려줌
+            if (!accountUserCache.existsById(userId)) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+            throw new AccountException(toErrorCode(result.getCode()));
+        }
+
+        Transaction transaction = newTransaction(USE, amount, result.getBalance());
+        redisBalanceWriteBehind.submit(LedgerEntry.builder()
+                .transaction(transaction)
+                .accountId(result.getAccountId())
+                .accountNumber(accountNumber)
+                .build());
+        //목록은 Redis 잔액을 덮어써서 보여주므로 DB 반영을 기다리지 않고 지움
+        accountInfoCache.invalidateAfterCommit(accountNumber);
+
+        return TransactionDto.fromEntity(transaction, accountNumber);
+    }
+
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        //아직 DB 에 반영 안된 거래일 수 있으므로 write-behind 큐부터 확인
+        LedgerEntry original = redisBalanceWriteBehind.findPending(transactionId)
+                .orElseGet(() -> transactionRepository.findWithAccountByTransactionId(transactionId)
+                        .map(transaction -> LedgerEntry.builder()
+                                .transaction(transaction)
+                                .accountId(transaction.getAccount().getId())
+                                .accountNumber(transaction.getAccount().getAccountNumber())
+                                .build())
+                        .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+        Long accountId = redisBalanceStore.getAccountId(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        validateCancelBalance(original, accountId, amount);
+
+        //같은 거래의 동시 취소는 스크립트 안에서 하나만 입금됨
+        long balance = redisBalanceStore.cancel(accountNumber, transactionId, amount);
+        if (balance == RedisBalanceStore.NOT_FOUND) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        if (balance == RedisBalanceStore.ALREADY_CANCELED) {
+            throw new AccountException(ErrorCode.TRANSACTION_ALREADY_CANCELED);
+        }
+
+        Transaction transaction = newTransaction(CANCEL, amount, balance);
+        redisBalanceWriteBehind.submit(LedgerEntry.builder()
+                .transaction(transaction)
+                .accountId(accountId)
+                .accountNumber(accountNumber)
+                .build());
+        //목록은 Redis 잔액을 덮어써서 보여주므로 DB 반영을 기다리지 않고 지움
+        accountInfoCache.invalidateAfterCommit(accountNumber);
+
+        return TransactionDto.fromEntity(transaction, accountNumber);
+    }
+
+    public TransactionDto queryTransaction(String transactionId) {
+        return redisBalanceWriteBehind.findPending(transactionId)
+                .map(entry -> TransactionDto.fromEntity(entry.getTransaction(), entry.getAccountNumber()))
+                .orElseGet(() -> transactionQueryCache.get(transactionId, this::findIssuedTransaction)
+                        .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+    }
+
+    //발급된 적 없는 id (거래 id 필터) 는 DB 까지 가지 않음
+    private Optional<TransactionDto> findIssuedTransaction(String transactionId) {
+        return transactionIdFilter.mightContain(transactionId)
+                ? transactionRepository.findDtoByTransactionId(transactionId)
+                : Optional.empty();
+    }
+
+    private void validateCancelBalance(LedgerEntry original, Long accountId, Long amount) {
+        Transaction transaction = original.getTransaction();
+        if (!Objects.equals(original.getAccountId(), accountId)) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if (!Objects.equals(transaction.getAmount(), amount)) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+    }
+
+    private Transaction newTransaction(TransactionType transactionType, Long amount, Long balanceSnapshot) {
+        //계좌는 write-behind 에서 DB 에 저장할때 연결
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdIssuer.issue())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static ErrorCode toErrorCode(long code) {
+        if (code == RedisBalanceStore.NOT_FOUND) {
+            return ErrorCode.ACCOUNT_NOT_FOUND;
+        }
+        if (code == RedisBalanceStore.USER_UN_MATCH) {
+            return ErrorCode.USER_ACCOUNT_UN_MATCH;
+        }
+        if (code == RedisBalanceStore.UNREGISTERED) {
+            return ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+        }
+        if (code == RedisBalanceStore.NOT_ENOUGH) {
+            return ErrorCode.AMOUNT_EXCEED_BALANCE;
+        }
+        return ErrorCode.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * REDIS 모드에서 계좌 잔액을 보관하는 곳
+ * 계좌마다 "ABAL:" + 계좌번호 hash 에 balance, status, userId, accountId 를 저장하고
+ * 사용/취소는 Lua 스크립트 한번으로 상태와 잔액을 확인하고 바로 반영한다.
+ * 취소된 거래 id 는 같은 hash 에 "cancel:" + 거래 id 로 남겨 두번 입금되지 않게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisBalanceStore {
+    public static final long NOT_FOUND = -1L;
+    public static final long UNREGISTERED = -2L;
+    public static final long USER_UN_MATCH = -3L;
+    public static final long NOT_ENOUGH = -4L;
+    public static final long NOT_EMPTY = -5L;
+    public static final long ALREADY_CANCELED = -6L;
+
+    private static final String USE_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {-1, 0, 0} end " +
+            "local v = redis.call('HMGET', KEYS[1], 'userId', 'status', 'balance', 'accountId') " +
+            "if v[1] ~= ARGV[1] then return {-3, 0, 0} end " +
+            "if v[2] ~= 'IN_USE' then return {-2, 0, 0} end " +
+            "local amount = tonumber(ARGV[2]) " +
+            "if tonumber(v[3]) < amount then return {-4, 0, 0} end " +
+            "local balance = redis.call('HINCRBY', KEYS[1], 'balance', -amount) " +
+            "return {0, balance, tonumber(v[4])}";
+
+    private static final String CANCEL_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "if redis.call('HSETNX', KEYS[1], 'cancel:' .. ARGV[2], '1') == 0 then return -6 end " +
+            "return redis.call('HINCRBY', KEYS[1], 'balance', ARGV[1])";
+
+    private static final String UNREGISTER_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "if tonumber(redis.call('HGET', KEYS[1], 'balance')) > 0 then return -5 end " +
+            "redis.call('HSET', KEYS[1], 'status', 'UNREGISTERED') " +
+            "return 0";
+
+    private static final String REREGISTER_SCRIPT =
+            "if redis.call('HGET', KEYS[1], 'status') ~= 'UNREGISTERED' then return -1 end " +
+            "redis.call('HSET', KEYS[1], 'status', 'IN_USE') " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    private final Map<String, String> scriptShas = new ConcurrentHashMap<>();
+
+    /**
+     * 앱 시작시 account 테이블로 Redis 잔액을 다시 만든다.
+     * 이미 Redis 에 있는 잔액은 DB 보다 최신일 수 있으므로 (write-behind) 없는 경우만 채운다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (balanceMutationMode != BalanceMutationMode.REDIS) {
+            return;
+        }
+        List<Account> accounts = accountRepository.findAll();
+        RBatch batch = redissonClient.createBatch();
+        for (Account account : accounts) {
+            RMapAsync<String, String> map = batch.getMap(getKey(account.getAccountNumber()), StringCodec.INSTANCE);
+            map.fastPutIfAbsentAsync("balance", String.valueOf(account.getBalance()));
+            map.fastPutAsync("status", account.getAccountStatus().name());
+            map.fastPutAsync("userId", String.valueOf(account.getAccountUser().getId()));
+            map.fastPutAsync("accountId", String.valueOf(account.getId()));
+        }
+        batch.execute();
+        log.info("Reconciled {} account balances into redis", accounts.size());
+    }
+
+    public void put(Account account) {
+        RBatch batch = redissonClient.createBatch();
+        RMapAsync<String, String> map = batch.getMap(getKey(account.getAccountNumber()), StringCodec.INSTANCE);
+        map.fastPutAsync("balance", String.valueOf(account.getBalance()));
+        map.fastPutAsync("status", account.getAccountStatus().name());
+        map.fastPutAsync("userId", String.valueOf(account.getAccountUser().getId()));
+        map.fastPutAsync("accountId", String.valueOf(account.getId()));
+        batch.execute();
+    }
+
+    public UseResult use(String accountNumber, Long userId, Long amount) {
+        List<Object> result = run(USE_SCRIPT, RScript.ReturnType.MULTI,
+                getKey(accountNumber), String.valueOf(userId), String.valueOf(amount));
+        return new UseResult(toLong(result.get(0)), toLong(result.get(1)), toLong(result.get(2)));
+    }
+
+    //취소 후 잔액, 계좌가 없으면 NOT_FOUND, 이미 취소된 거래면 ALREADY_CANCELED
+    public long cancel(String accountNumber, String transactionId, Long amount) {
+        Long result = run(CANCEL_SCRIPT, RScript.ReturnType.INTEGER,
+                getKey(accountNumber), String.valueOf(amount), transactionId);
+        return result;
+    }
+
+    //잔액이 0 일때만 해지 상태로 -> 0, NOT_FOUND, NOT_EMPTY
+    public long unregister(String accountNumber) {
+        Long result = run(UNREGISTER_SCRIPT, RScript.ReturnType.INTEGER, getKey(accountNumber));
+        return result;
+    }
+
+    //해지 트랜잭션이 롤백된 경우 unregister 를 되돌림
+    public void reregister(String accountNumber) {
+        run(REREGISTER_SCRIPT, RScript.ReturnType.INTEGER, getKey(accountNumber));
+    }
+
+    public Optional<Long> getAccountId(String accountNumber) {
+        return Optional.ofNullable(redissonClient.<String, String>getMap(getKey(accountNumber), StringCodec.INSTANCE)
+                        .get("accountId"))
+                .map(Long::valueOf);
+    }
+
+    //계좌번호 순서대로 현재 잔액 (없으면 null) -> 한번의 round trip
+    public List<Long> getBalances(List<String> accountNumbers) {
+        RBatch batch = redissonClient.createBatch();
+        for (String accountNumber : accountNumbers) {
+            batch.<String, String>getMap(getKey(accountNumber), StringCodec.INSTANCE).getAsync("balance");
+        }
+        List<?> responses = batch.execute().getResponses();
+        List<Long> balances = new ArrayList<>(responses.size());
+        for (Object response : responses) {
+            balances.add(response == null ? null : Long.valueOf(response.toString()));
+        }
+        return balances;
+    }
+
+    private <R> R run(String script, RScript.ReturnType returnType, String key, Object... args) {
+        RScript rScript = redissonClient.getScript(StringCodec.INSTANCE);
+        List<Object> keys = Collections.singletonList(key);
+        try {
+            return rScript.evalSha(RScript.Mode.READ_WRITE, shaOf(rScript, script), returnType, keys, args);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            //redis 재시작 등으로 스크립트 캐시가 비었으면 다시 올림
+            scriptShas.remove(script);
+            return rScript.eval(RScript.Mode.READ_WRITE, script, returnType, keys, args);
+        }
+    }
+
+    private String shaOf(RScript rScript, String script) {
+        return scriptShas.computeIfAbsent(script, rScript::scriptLoad);
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private String getKey(String accountNumber) {
+        return "ABAL:" + accountNumber;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class UseResult {
+        private final long code;
+        private final long balance;
+        private final long accountId;
+
+        public boolean isSuccess() {
+            return code == 0L;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.account.service;
+
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.RedisBalanceDurability;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * REDIS 모드의 write-behind
+ * Redis 에서 처리된 거래를 큐에 쌓아두고, 백그라운드 쓰레드가 배치로 DB 에 반영한다.
+ * 계좌 잔액은 flush 시점의 Redis 최신 잔액으로 맞춘다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisBalanceWriteBehind {
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final RedisBalanceStore redisBalanceStore;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    @Value("${account.redis-balance.durability:REDIS}")
+    private RedisBalanceDurability durability = RedisBalanceDurability.REDIS;
+
+    @Value("${account.redis-balance.flush-interval-ms:50}")
+    private long flushIntervalMs = 50L;
+
+    @Value("${account.redis-balance.batch-size:500}")
+    private int batchSize = 500;
+
+    //큐가 가득차면 요청 쓰레드가 기다린다 (backpressure, 유실 없음)
+    @Value("${account.redis-balance.max-pending:100000}")
+    private int maxPending = 100000;
+
+    //아직 DB 에 없는 거래 -> 취소 요청이 먼저 들어와도 찾을 수 있게
+    private final Map<String, LedgerEntry> pendingByTransactionId = new ConcurrentHashMap<>();
+
+    private BlockingQueue<PendingEntry> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (balanceMutationMode != BalanceMutationMode.REDIS) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(maxPending);
+        running = true;
+        flusher = new Thread(this::flushLoop, "redis-balance-write-behind");
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        //남은 거래를 모두 flush 하고 종료
+        running = false;
+        flusher.join();
+    }
+
+    public void submit(LedgerEntry entry) {
+        PendingEntry pending = new PendingEntry(entry, new CompletableFuture<>());
+        pendingByTransactionId.put(entry.getTransaction().getTransactionId(), entry);
+        BatchQueues.putUninterruptibly(queue, pending);
+
+        if (durability == RedisBalanceDurability.DATABASE) {
+            pending.getFlushed().join();
+        }
+    }
+
+    public Optional<LedgerEntry> findPending(String transactionId) {
+        return Optional.ofNullable(pendingByTransactionId.get(transactionId));
+    }
+
+    private void flushLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<PendingEntry> batch = BatchQueues.drain(queue, batchSize, flushIntervalMs);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<PendingEntry> batch) throws InterruptedException {
+        while (true) {
+            try {
+                write(batch);
+                for (PendingEntry pending : batch) {
+                    pendingByTransactionId.remove(pending.getEntry().getTransaction().getTransactionId());
+                    pending.getFlushed().complete(null);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Write-behind flush failed on shutdown. {} ledger rows not persisted", batch.size(), e);
+                    batch.forEach(pending -> pending.getFlushed().completeExceptionally(e));
+                    return;
+                }
+                log.error("Write-behind flush failed. retry", e);
+                Thread.sleep(flushIntervalMs);
+            }
+        }
+    }
+
+    private void write(List<PendingEntry> batch) {
+        List<LedgerEntry> entries = batch.stream()
+                .map(PendingEntry::getEntry)
+                .collect(Collectors.toList());
+
+        List<String> accountNumbers = entries.stream()
+                .map(LedgerEntry::getAccountNumber)
+                .distinct()
+                .collect(Collectors.toList());
+        List<Long> balances = redisBalanceStore.getBalances(accountNumbers);
+        Map<String, Long> latestBalances = new HashMap<>();
+        for (int i = 0; i < accountNumbers.size(); i++) {
+            latestBalances.put(accountNumbers.get(i), balances.get(i));
+        }
+
+        for (LedgerEntry entry : entries) {
+            entry.setNewBalance(latestBalances.get(entry.getAccountNumber()));
+        }
+        ledgerBatchWriter.write(entries);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingEntry {
+        private final LedgerEntry entry;
+        private final CompletableFuture<Void> flushed;
+    }
+}
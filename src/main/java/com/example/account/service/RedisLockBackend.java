@@ -0,0 +1,48 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redisson RLock 기반 분산 락 (여러 인스턴스 사이에서 유효)
+ */
+@RequiredArgsConstructor
+public class RedisLockBackend implements LockBackend {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public boolean tryLock(String lockKey, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        return redissonClient.getLock(lockKey).tryLock(waitTime, leaseTime, unit);
+    }
+
+    @Override
+    public void unlock(String lockKey) {
+        redissonClient.getLock(lockKey).unlock();
+    }
+
+    @Override
+    public boolean isHeldByCurrentThread(String lockKey) {
+        return redissonClient.getLock(lockKey).isHeldByCurrentThread();
+    }
+
+    //Redisson MultiLock -> 일부만 잡힌 상태로 기다리지 않고 놓았다가 다시 시도한다
+    @Override
+    public boolean tryLockAll(List<String> lockKeys, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        return redissonClient.getMultiLock(getLocks(lockKeys)).tryLock(waitTime, leaseTime, unit);
+    }
+
+    @Override
+    public void unlockAll(List<String> lockKeys) {
+        redissonClient.getMultiLock(getLocks(lockKeys)).unlock();
+    }
+
+    private RLock[] getLocks(List<String> lockKeys) {
+        return lockKeys.stream()
+                .map(redissonClient::getLock)
+                .toArray(RLock[]::new);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 클러스터에서 겹치지 않는 노드 id 를 Redis 에서 빌려온다.
+ * "TXID:node:" + id 키를 TTL 과 함께 SET NX 로 차지하고, TTL 의 1/3 마다 연장한다.
+ * 노드가 죽으면 TTL 이 지난 뒤 다른 노드가 같은 id 를 쓸 수 있다.
+ * 연장에 실패한채 TTL 의 2/3 가 지나거나 키를 잃으면 getNodeId 는 실패하고 (거래 id 발급 실패),
+ * 다음 연장 주기에 새 노드 id 를 빌려온 뒤부터 다시 발급한다. 잃은 id 는 다시 쓰지 않음
+ */
+@Slf4j
+public class RedisNodeIdLease implements AutoCloseable {
+    private static final String RENEW_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return 0";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('DEL', KEYS[1]) end " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+    private final long maxNodeId;
+    private final long ttlMillis;
+    private final String owner = UUID.randomUUID().toString();
+    //-1 이면 빌린 id 가 없음
+    private volatile long nodeId;
+    //이 시각(nanoTime)이 지나면 Redis 에서 TTL 이 끝났을 수 있으므로 id 를 쓰지 않음
+    private volatile long validUntilNanos;
+    private final ScheduledExecutorService renewer;
+
+    public RedisNodeIdLease(RedissonClient redissonClient, long maxNodeId, long ttlMillis) {
+        this.redissonClient = redissonClient;
+        this.maxNodeId = maxNodeId;
+        this.ttlMillis = ttlMillis;
+        this.nodeId = acquire();
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-id-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleAtFixedRate(this::renew, ttlMillis / 3, ttlMillis / 3, TimeUnit.MILLISECONDS);
+    }
+
+    public long getNodeId() {
+        long id = nodeId;
+        if (id < 0 || System.nanoTime() - validUntilNanos > 0) {
+            throw new IllegalStateException("Transaction id node id lease is lost");
+        }
+        return id;
+    }
+
+    private long acquire() {
+        long slots = maxNodeId + 1;
+        //카운터로 시작 위치를 나눠서 노드들이 같은 id 부터 경쟁하지 않도록
+        long start = redissonClient.getAtomicLong("TXID:node-seq").getAndIncrement();
+        for (long i = 0; i < slots; i++) {
+            long candidate = Math.floorMod(start + i, slots);
+            long sentAt = System.nanoTime();
+            if (redissonClient.getBucket(getKey(candidate), StringCodec.INSTANCE)
+                    .trySet(owner, ttlMillis, TimeUnit.MILLISECONDS)) {
+                extendValidity(sentAt);
+                log.info("Leased transaction id node id {}", candidate);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free node id. all " + slots + " node ids are leased");
+    }
+
+    void renew() {
+        long id = nodeId;
+        if (id < 0) {
+            reacquire();
+            return;
+        }
+        long sentAt = System.nanoTime();
+        try {
+            Long renewed = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(getKey(id)), owner, String.valueOf(ttlMillis));
+            if (renewed == null || renewed == 0L) {
+                //TTL 이 지나 다른 노드가 가져갔을 수 있음 -> 바로 발급을 멈추고 새 id 를 빌림
+                log.error("Lost transaction id node id lease {}. acquiring a new node id", id);
+                nodeId = -1L;
+                reacquire();
+                return;
+            }
+            extendValidity(sentAt);
+        } catch (RuntimeException e) {
+            //다음 주기에 다시 시도, 그 사이 유효 시간이 지나면 getNodeId 가 실패함
+            log.error("Failed to renew node id lease {}", id, e);
+        }
+    }
+
+    private void reacquire() {
+        try {
+            nodeId = acquire();
+        } catch (RuntimeException e) {
+            log.error("Failed to acquire a new transaction id node id", e);
+        }
+    }
+
+    //요청을 보낸 시각부터 TTL 의 2/3 -> 응답 지연, 시계 차이를 감안해도 Redis 의 키보다 먼저 끝남
+    private void extendValidity(long sentAt) {
+        validUntilNanos = sentAt + TimeUnit.MILLISECONDS.toNanos(ttlMillis - ttlMillis / 3);
+    }
+
+    @Override
+    public void close() {
+        renewer.shutdownNow();
+        long id = nodeId;
+        if (id < 0) {
+            return;
+        }
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(getKey(id)), owner);
+    }
+
+    private String getKey(long id) {
+        return "TXID:node:" + id;
+    }
+}
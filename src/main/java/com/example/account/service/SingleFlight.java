@@ -0,0 +1,66 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 동시 읽기를 한번의 로딩으로 합친다. (노드 로컬)
+ * 먼저 온 요청이 loader 를 실행하고, 그 사이에 온 요청은 같은 결과(또는 예외)를 기다려서 받는다.
+ * 로딩이 끝나면 바로 빠지므로 결과를 기억하지 않음 -> 캐시는 호출하는 쪽에서
+ * 합쳐진 요청 수 : singleflight.coalesced (name 태그)
+ */
+final class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.coalesced = meterRegistry.counter("singleflight.coalesced", "name", name);
+        Gauge.builder("singleflight.in-flight", inFlight, Map::size)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        //먼저 빼고 결과를 알림 -> 이후에 온 요청은 끝난 로딩에 붙지 않고 새로 읽음
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    //먼저 온 요청이 던진 예외를 그대로 (AccountException 등)
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
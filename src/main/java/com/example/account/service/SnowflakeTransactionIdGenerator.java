@@ -0,0 +1,93 @@
+package com.example.account.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간순 거래 id
+ * 41bit 밀리초(2022-01-01 기준) | 10bit 노드 id | 12bit 시퀀스 -> 고정 11자리 base62
+ * 문자 순서가 숫자 순서와 같으므로 한 노드에서 만든 id 는 항상 증가 -> 인덱스 삽입이 뒤쪽에 몰림
+ * 락 없이 (타임스탬프, 시퀀스)를 AtomicLong 하나에 CAS 로 갱신한다.
+ * 한 밀리초의 시퀀스를 다 쓰거나 시계가 뒤로 가면 다음 밀리초를 미리 당겨쓴다. (단조 증가 유지)
+ * 노드 id 는 매번 lease 에서 읽는다 -> lease 를 잃으면 새 id 를 빌릴때까지 발급이 실패한다.
+ */
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator, AutoCloseable {
+    static final long EPOCH = 1640995200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] BASE62 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    //62^11 > 2^63
+    private static final int ENCODED_LENGTH = 11;
+
+    private final LongSupplier nodeId;
+    private final LongSupplier clock;
+    private final AutoCloseable nodeIdLease;
+    //(EPOCH 이후 밀리초 << SEQUENCE_BITS) | 시퀀스
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeTransactionIdGenerator(RedisNodeIdLease nodeIdLease) {
+        this(nodeIdLease::getNodeId, System::currentTimeMillis, nodeIdLease);
+    }
+
+    SnowflakeTransactionIdGenerator(long nodeId, LongSupplier clock, AutoCloseable nodeIdLease) {
+        this(() -> nodeId, clock, nodeIdLease);
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+    }
+
+    SnowflakeTransactionIdGenerator(LongSupplier nodeId, LongSupplier clock, AutoCloseable nodeIdLease) {
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.nodeIdLease = nodeIdLease;
+    }
+
+    @Override
+    public String generate() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        //lease 를 잃었으면 여기서 실패
+        long node = nodeId.getAsLong();
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        long value = id;
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = BASE62[(int) (value % 62)];
+            value /= 62;
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public void close() throws Exception {
+        nodeIdLease.close();
+    }
+}
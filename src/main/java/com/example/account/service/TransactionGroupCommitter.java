@@ -0,0 +1,153 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.BalanceMutationMode;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LOCK 모드의 거래 row / 잔액 저장을 여러 요청(서로 다른 계좌)에 걸쳐 모아서 한번에 커밋한다.
+ * 그룹을 연 첫 요청(리더)이 max-wait-ms 또는 max-rows 까지 모은 뒤
+ * 자기 DB 트랜잭션 안에서 그룹 전체를 배치로 쓰고, 커밋이 끝나면 나머지 요청(팔로워)을 깨운다.
+ * 리더가 이미 잡고있는 커넥션으로 쓰기 때문에, 커넥션을 잡은채 기다리는 팔로워가 많아도 풀이 고갈되지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionGroupCommitter {
+    private final LedgerBatchWriter ledgerBatchWriter;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
+
+    @Value("${account.group-commit.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${account.group-commit.max-wait-ms:2}")
+    private long maxWaitMs = 2L;
+
+    @Value("${account.group-commit.max-rows:64}")
+    private int maxRows = 64;
+
+    private final Object monitor = new Object();
+    //지금 요청을 받고있는 그룹, 리더가 닫으면 null
+    private Group open;
+
+    //계좌 락이 같은 계좌 요청을 막아주는 LOCK 모드에서만 사용
+    public boolean isEnabled() {
+        return enabled && balanceMutationMode == BalanceMutationMode.LOCK;
+    }
+
+    /**
+     * 거래를 그룹에 넣고 그룹이 커밋될 때까지 기다린다.
+     * 호출하는 쪽은 엔티티를 바꾸지 않고 새 잔액만 넘겨야 한다. (자기 트랜잭션에서 UPDATE 가 또 나가지 않도록)
+     */
+    public void commit(LedgerEntry entry) {
+        Group group;
+        boolean leader;
+        synchronized (monitor) {
+            leader = open == null;
+            if (leader) {
+                open = new Group();
+            }
+            group = open;
+            group.entries.add(entry);
+            if (group.entries.size() >= maxRows) {
+                open = null;
+                monitor.notifyAll();
+            }
+        }
+
+        if (leader) {
+            lead(group);
+        } else {
+            await(group);
+        }
+    }
+
+    private void lead(Group group) {
+        List<LedgerEntry> entries = collect(group);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            //트랜잭션 밖에서 호출된 경우 -> write 자체가 트랜잭션
+            try {
+                ledgerBatchWriter.write(entries);
+            } catch (RuntimeException e) {
+                group.committed.completeExceptionally(e);
+                throw e;
+            }
+            group.committed.complete(null);
+            return;
+        }
+
+        //리더 트랜잭션이 끝난 뒤 결과를 팔로워에게 알려줌
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    group.committed.complete(null);
+                } else {
+                    group.committed.completeExceptionally(
+                            new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+                }
+            }
+        });
+        ledgerBatchWriter.write(entries);
+    }
+
+    private List<LedgerEntry> collect(Group group) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        boolean interrupted = false;
+        synchronized (monitor) {
+            while (open == group) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                } catch (InterruptedException e) {
+                    //더 기다리지 않고 지금까지 모은 것만 커밋
+                    interrupted = true;
+                    break;
+                }
+            }
+            if (open == group) {
+                open = null;
+            }
+            //그룹이 닫혔으므로 더 이상 추가되지 않음
+            List<LedgerEntry> entries = new ArrayList<>(group.entries);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return entries;
+        }
+    }
+
+    private void await(Group group) {
+        try {
+            group.committed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static class Group {
+        private final List<LedgerEntry> entries = new ArrayList<>();
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+    }
+}
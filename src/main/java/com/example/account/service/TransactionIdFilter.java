@@ -0,0 +1,227 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionIdView;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 발급한 거래 id 의 Bloom filter (Redis, 모든 노드가 공유)
+ * 필터에 없으면 발급된 적 없는 id -> 취소/조회를 DB 와 계좌 락 없이 TRANSACTION_NOT_FOUND 로 끝낸다.
+ * 필터에 있다고 나와도 없는 id 일 수 있으므로 (오탐) 그때는 지금처럼 DB 에서 확인한다.
+ *
+ * 용량이 차면 층을 하나 더 만든다. 층마다 용량은 2배, 오탐률은 절반이라 전체 오탐률은 false-probability 이하
+ * 새 층은 층 수를 올린 뒤에만 쓰므로, 다른 노드는 찾지 못했을때 층 수를 다시 읽으면 빠뜨리지 않는다.
+ * 시작할때 필터가 아직 없으면 거래 테이블에서 다시 만들고, 다 만들기 전에는 거절하지 않는다.
+ */
+@Slf4j
+@Component
+public class TransactionIdFilter {
+    static final String PREFIX = "TXBF:";
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final RedissonClient redissonClient;
+    private final TransactionRepository transactionRepository;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    @Value("${account.transaction-id-filter.enabled:true}")
+    private boolean enabled = true;
+
+    //첫 층의 예상 거래 수
+    @Value("${account.transaction-id-filter.initial-capacity:1000000}")
+    private long initialCapacity = 1_000_000L;
+
+    @Value("${account.transaction-id-filter.false-probability:0.001}")
+    private double falseProbability = 0.001;
+
+    @Value("${account.transaction-id-filter.rebuild-batch-size:10000}")
+    private int rebuildBatchSize = 10000;
+
+    private final List<RBloomFilter<String>> layers = new CopyOnWriteArrayList<>();
+    private RAtomicLong layerCount;
+    private RBucket<String> readyFlag;
+    private volatile boolean ready;
+
+    public TransactionIdFilter(RedissonClient redissonClient,
+                               TransactionRepository transactionRepository,
+                               MeterRegistry meterRegistry) {
+        this.redissonClient = redissonClient;
+        this.transactionRepository = transactionRepository;
+        this.meterRegistry = meterRegistry;
+        this.rejected = meterRegistry.counter("transaction.id-filter.rejected");
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        layerCount = redissonClient.getAtomicLong(PREFIX + "layers");
+        readyFlag = redissonClient.getBucket(PREFIX + "ready", StringCodec.INSTANCE);
+        openLayer(0);
+        layerCount.compareAndSet(0, 1);
+        refreshLayers();
+
+        Gauge.builder("transaction.id-filter.layers", layers, List::size)
+                .register(meterRegistry);
+        Gauge.builder("transaction.id-filter.memory", this, TransactionIdFilter::getMemoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("transaction.id-filter.false-probability", this, filter -> filter.falseProbability)
+                .register(meterRegistry);
+    }
+
+    //이미 만들어져 있으면 (다른 노드 / 이전 실행) 그대로 사용 -> 발급할때마다 넣고 있으므로
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfAbsent() {
+        if (!enabled || isReady()) {
+            return;
+        }
+        long lastId = 0L;
+        long loaded = 0L;
+        List<TransactionIdView> page;
+        while (!(page = transactionRepository.findByIdGreaterThanOrderById(
+                lastId, PageRequest.of(0, rebuildBatchSize))).isEmpty()) {
+            for (TransactionIdView view : page) {
+                if (view.getTransactionId() != null) {
+                    add(view.getTransactionId());
+                }
+            }
+            lastId = page.get(page.size() - 1).getId();
+            loaded += page.size();
+        }
+        readyFlag.set("1");
+        ready = true;
+        log.info("Transaction id filter rebuilt. {} ids, {} layers, {} bytes, false probability {}",
+                loaded, layers.size(), getMemoryBytes(), falseProbability);
+    }
+
+    /**
+     * 거래 id 를 발급할때 (거래 row 를 저장하기 전에) 넣는다.
+     * 저장이 롤백되어도 남지만 오탐이 하나 늘 뿐이다.
+     */
+    public void add(String transactionId) {
+        if (!enabled) {
+            return;
+        }
+        int index = layers.size() - 1;
+        if (layers.get(index).add(transactionId)) {
+            //비트가 바뀐 경우만 셈 -> 용량을 넘으면 다음 층 (요청 쓰레드는 기다리지 않음)
+            redissonClient.getAtomicLong(PREFIX + index + ":count").incrementAndGetAsync()
+                    .thenAcceptAsync(count -> {
+                        if (count >= capacity(index)) {
+                            grow(index);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 발급된 적 없는 id 면 TRANSACTION_NOT_FOUND
+     */
+    public void validateIssued(String transactionId) {
+        if (!mightContain(transactionId)) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+    }
+
+    /**
+     * false 면 발급된 적 없는 id (true 는 오탐일 수 있음)
+     */
+    public boolean mightContain(String transactionId) {
+        if (!enabled || !isReady()) {
+            return true;
+        }
+        if (!containsInLayers(transactionId)) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean containsInLayers(String transactionId) {
+        int checked = 0;
+        for (RBloomFilter<String> layer : layers) {
+            if (layer.contains(transactionId)) {
+                return true;
+            }
+            checked++;
+        }
+        //다른 노드가 층을 늘렸을 수 있음
+        refreshLayers();
+        for (int index = checked; index < layers.size(); index++) {
+            if (layers.get(index).contains(transactionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isReady() {
+        if (!ready && readyFlag.isExists()) {
+            ready = true;
+        }
+        return ready;
+    }
+
+    private void grow(int index) {
+        try {
+            openLayer(index + 1);
+            //층을 만든 뒤에 층 수를 올림 -> 다른 노드가 먼저 올렸으면 그대로 둠
+            layerCount.compareAndSet(index + 1, index + 2);
+            refreshLayers();
+        } catch (RuntimeException e) {
+            log.error("Failed to add transaction id filter layer {}", index + 1, e);
+        }
+    }
+
+    private synchronized void refreshLayers() {
+        long count = layerCount.get();
+        while (layers.size() < count) {
+            layers.add(openLayer(layers.size()));
+        }
+    }
+
+    private RBloomFilter<String> openLayer(int index) {
+        RBloomFilter<String> layer = redissonClient.getBloomFilter(PREFIX + index, StringCodec.INSTANCE);
+        //이미 있으면 false -> 기존 설정 그대로
+        layer.tryInit(capacity(index), probability(index));
+        return layer;
+    }
+
+    long capacity(int index) {
+        return initialCapacity << Math.min(index, 20);
+    }
+
+    double probability(int index) {
+        return falseProbability * (1 - TIGHTENING_RATIO) * Math.pow(TIGHTENING_RATIO, index);
+    }
+
+    //층별 비트 수 합계 (Redisson 과 같은 계산)
+    double getMemoryBytes() {
+        double bits = 0;
+        for (int index = 0; index < layers.size(); index++) {
+            bits += Math.ceil(-capacity(index) * Math.log(probability(index)) / (Math.log(2) * Math.log(2)));
+        }
+        return bits / 8;
+    }
+}
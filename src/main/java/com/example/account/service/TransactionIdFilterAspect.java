@@ -0,0 +1,31 @@
+package com.example.account.service;
+
+import com.example.account.dto.CancelBalance;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 발급된 적 없는 거래 id 의 취소는 계좌 락을 잡기 전에 끝낸다.
+ * 락, 원거래 조회, 실패 거래(F) 저장을 모두 하지 않음
+ * 멱등성 처리(@Order(1)) 다음, 스냅샷 검사(AdmissionAspect) 전에 실행된다.
+ */
+@Aspect
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class TransactionIdFilterAspect {
+    private final TransactionIdFilter transactionIdFilter;
+
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request, ..)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            CancelBalance.Request request
+    ) throws Throwable {
+        transactionIdFilter.validateIssued(request.getTransactionId());
+        return pjp.proceed();
+    }
+}
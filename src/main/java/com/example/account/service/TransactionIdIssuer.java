@@ -0,0 +1,22 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 거래 row 에 쓸 id 발급
+ * 저장 전에 거래 id 필터에 넣는다 -> 응답을 받은 뒤의 취소/조회가 필터에서 거절되지 않도록
+ * (홀드 id, 이체 id 처럼 거래 row id 가 아닌 값은 TransactionIdGenerator 를 그대로 쓴다)
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionIdIssuer {
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionIdFilter transactionIdFilter;
+
+    public String issue() {
+        String transactionId = transactionIdGenerator.generate();
+        transactionIdFilter.add(transactionId);
+        return transactionId;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 거래 조회 캐시 (노드 로컬)
+ * 거래 row 는 저장 후 바뀌지 않으므로 무효화 없이 크기(바이트 추정치)로만 밀어낸다.
+ * 저장한 거래는 커밋이 끝난 뒤 바로 넣고 (write-through), 없는 거래 id 는 짧게 따로 기억해서
+ * 임의의 id 로 반복 조회해도 DB 까지 가지 않는다.
+ * 없는 id 를 기억하는 동안 다른 노드에서 그 id 로 저장되면 최대 negative-ttl 동안 조회 실패로 보일 수 있음
+ */
+@Component
+public class TransactionQueryCache {
+    //문자열 두개(계좌번호, 거래 id)를 뺀 Dto 한개의 대략적인 크기
+    private static final int BASE_WEIGHT = 160;
+
+    private final MeterRegistry meterRegistry;
+    private final SingleFlight<String, Optional<TransactionDto>> loads;
+
+    @Value("${account.transaction-cache.max-weight-bytes:67108864}")
+    private long maxWeightBytes = 64L * 1024 * 1024;
+
+    @Value("${account.transaction-cache.negative-size:100000}")
+    private long negativeSize = 100000L;
+
+    @Value("${account.transaction-cache.negative-ttl-ms:1000}")
+    private long negativeTtlMs = 1000L;
+
+    private Cache<String, TransactionDto> transactions;
+    private Cache<String, Boolean> unknownIds;
+
+    public TransactionQueryCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.loads = new SingleFlight<>("transaction.query", meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        transactions = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher(TransactionQueryCache::weigh)
+                .recordStats()
+                .build();
+        unknownIds = Caffeine.newBuilder()
+                .maximumSize(negativeSize)
+                .expireAfterWrite(Duration.ofMillis(negativeTtlMs))
+                .recordStats()
+                .build();
+        //cache.gets / cache.puts / cache.evictions ... (cache=transaction.query)
+        CaffeineCacheMetrics.monitor(meterRegistry, transactions, "transaction.query");
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownIds, "transaction.query.unknown");
+    }
+
+    /**
+     * 캐시에 없으면 loader 로 한번 읽어서 있으면 넣고, 없으면 없는 id 로 기억
+     * 같은 id 를 동시에 조회하면 loader 는 한번만 실행 (SingleFlight)
+     */
+    public Optional<TransactionDto> get(String transactionId,
+                                        Function<String, Optional<TransactionDto>> loader) {
+        TransactionDto cached = transactions.getIfPresent(transactionId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (unknownIds.getIfPresent(transactionId) != null) {
+            return Optional.empty();
+        }
+        return loads.execute(transactionId, () -> load(transactionId, loader));
+    }
+
+    private Optional<TransactionDto> load(String transactionId,
+                                          Function<String, Optional<TransactionDto>> loader) {
+        Optional<TransactionDto> loaded = loader.apply(transactionId);
+        if (loaded.isPresent()) {
+            transactions.put(transactionId, loaded.get());
+        } else {
+            unknownIds.put(transactionId, Boolean.TRUE);
+        }
+        return loaded;
+    }
+
+    /**
+     * 저장한 거래를 커밋이 끝난 뒤 넣는다. (롤백되면 넣지 않음)
+     */
+    public void putAfterCommit(TransactionDto transactionDto) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(transactionDto);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(transactionDto);
+            }
+        });
+    }
+
+    private void put(TransactionDto transactionDto) {
+        transactions.put(transactionDto.getTransactionId(), transactionDto);
+        unknownIds.invalidate(transactionDto.getTransactionId());
+    }
+
+    private static int weigh(String transactionId, TransactionDto transactionDto) {
+        int accountNumberLength = transactionDto.getAccountNumber() == null
+                ? 0 : transactionDto.getAccountNumber().length();
+        return BASE_WEIGHT + 2 * (transactionId.length() + accountNumberLength);
+    }
+}
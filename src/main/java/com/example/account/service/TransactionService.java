@@ -3,28 +3,36 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.BulkBalance;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.Transfer;
+import com.example.account.dto.TransferDto;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBalanceView;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.ErrorCode.USER_NOT_FOUND;
-import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 
 @Slf4j
@@ -32,8 +40,21 @@ import static com.example.account.type.TransactionType.USE;
 @RequiredArgsConstructor
 public class TransactionService {
     private final TransactionRepository transactionRepository;
-    private final AccountUserRepository accountUserRepository;
+    private final AccountUserCache accountUserCache;
     private final AccountRepository accountRepository;
+    private final TransactionGroupCommitter transactionGroupCommitter;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionIdIssuer transactionIdIssuer;
+    private final HotAccountService hotAccountService;
+    private final HoldService holdService;
+    private final AccountSnapshotCache accountSnapshotCache;
+    private final TransactionQueryCache transactionQueryCache;
+    private final TransactionIdFilter transactionIdFilter;
+    private final AccountIndex accountIndex;
+    private final AccountInfoCache accountInfoCache;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private BalanceMutationMode balanceMutationMode = BalanceMutationMode.LOCK;
 
     /**
      * 사용자가 없는 경우, 계좌가 없는 경우, 사용자 아이디와 계좌 소유주가 다른 경우,
@@ -43,14 +64,35 @@ public class TransactionService {
 
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
-        AccountUser user = accountUserRepository.findById(userId)
+        return useBalance(userId, accountNumber, amount, true);
+    }
+
+    //groupCommit 이 false 면 그룹 커밋이 켜져 있어도 엔티티를 바로 바꿈 (bulk)
+    private TransactionDto useBalance(Long userId, String accountNumber, Long amount, boolean groupCommit) {
+        if (balanceMutationMode == BalanceMutationMode.ATOMIC_UPDATE) {
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+
+        AccountUser user = accountUserCache.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
 
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateUseBalance(user, account, amount);
+        validateUseBalance(user.getId(), account, amount);
+
+        if (account.isHot()) {
+            //hot 계좌는 sub-balance 칸에서 차감
+            //balanceSnapshot 은 다른 칸 락 없이 읽은 합계 -> 동시 거래가 있으면 근사값 (순서대로 이어지지 않음)
+            return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, account, amount,
+                    hotAccountService.useBalance(account, amount)));
+        }
+
+        if (groupCommit && transactionGroupCommitter.isEnabled()) {
+            return TransactionDto.fromEntity(
+                    groupCommitTransaction(USE, account, amount, account.balanceAfterUse(amount)));
+        }
 
         //노출됨..-> 엔티티 클래스 안에다가 구현하고 호출하기 -> 다 처리하고 엔티티에 직접 반엉하도록
         /*
@@ -63,26 +105,189 @@ public class TransactionService {
         return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, account, amount));
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
-        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+    /**
+     * 락 없이 조건부 UPDATE 한번으로 차감
+     * 성공하면 엔티티를 만들지 않고 id와 잔액만 다시 읽어서 거래를 저장하고,
+     * 실패한 경우에는 계좌 색인으로 실패 원인을 판별한다. (계좌 조회 없이)
+     */
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount) {
+        if (!accountUserCache.existsById(userId)) {
+            throw new AccountException(USER_NOT_FOUND);
+        }
+
+        int updated = accountRepository.decreaseBalanceIfEnough(
+                accountNumber, userId, amount, AccountStatus.IN_USE, LocalDateTime.now());
+        if (updated == 0) {
+            AccountRef accountRef = accountIndex.resolve(accountNumber)
+                    .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+            if (accountRef.getUserId() != userId) {
+                throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+            }
+            if (accountRef.getAccountStatus() == AccountStatus.UNREGISTERED) {
+                throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            //소유주와 상태가 맞다면 잔액 부족 (또는 그 사이 다른 요청이 잔액을 먼저 사용한 경우)
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+
+        //UPDATE 한 row 는 커밋 전까지 잠겨있으므로 여기서 읽은 잔액이 이번 거래 직후의 잔액
+        AccountBalanceView balanceView = accountRepository.findViewByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S,
+                accountRepository.getById(balanceView.getId()), accountNumber, amount, balanceView.getBalance()),
+                accountNumber);
+    }
+
+    private void validateUseBalance(Long userId, Account account, Long amount) {
+        if (!Objects.equals(userId, account.getAccountUser().getId())) {
             throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
         }
         if (account.getAccountStatus() != AccountStatus.IN_USE) {
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() < amount) {
+        //hot 계좌 잔액은 칸들에 나눠져 있어서 차감할때 확인, 홀드된 금액은 사용할 수 없음
+        if (!account.isHot()
+                && account.getBalance() - holdService.getHeldAmount(account.getAccountNumber()) < amount) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
     }
 
+    /**
+     * 계좌 락 안에서 사용 가능 금액만 확인하고 홀드를 건다. 잔액과 거래 row 는 capture 때 바뀐다.
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+    public HoldDto authorizeBalance(Long userId, String accountNumber, Long amount) {
+        if (!holdService.isEnabled()) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        AccountUser user = accountUserCache.findById(userId)
+                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (account.isHot()) {
+            //hot 계좌는 계좌 락을 잡지 않으므로 홀드 불가
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+
+        validateUseBalance(user.getId(), account, amount);
 
+        return holdService.hold(account, amount);
+    }
 
-        saveAndGetTransaction(USE, F, account, amount);
+    public TransactionDto captureBalance(String accountNumber, String holdId) {
+        return holdService.capture(accountNumber, holdId);
+    }
 
+    /**
+     * 계좌 간 이체. 출금/입금 거래 row 쌍을 같은 DB 트랜잭션에 저장
+     * 두 계좌 락은 @AccountLock 에서 계좌번호 순서로 한번에 잡혀있어야 한다.
+     */
+    @Transactional
+    public TransferDto transfer(Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        return transferAll(Collections.singletonList(
+                new Transfer.Request(userId, fromAccountNumber, toAccountNumber, amount))).get(0);
+    }
+
+    /**
+     * 여러 이체를 순서대로 적용하고 한번에 저장. 하나라도 실패하면 전부 롤백
+     */
+    @Transactional
+    public List<TransferDto> transferAll(List<Transfer.Request> transfers) {
+        if (balanceMutationMode == BalanceMutationMode.REDIS) {
+            //REDIS 모드 잔액은 계좌별 Lua 스크립트로만 바뀜
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+
+        Set<String> accountNumbers = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (Transfer.Request transfer : transfers) {
+            accountNumbers.add(transfer.getFromAccountNumber());
+            accountNumbers.add(transfer.getToAccountNumber());
+            userIds.add(transfer.getUserId());
+        }
+        for (Long userId : userIds) {
+            if (!accountUserCache.existsById(userId)) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+        }
+        //관련 계좌는 한번에 조회
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<TransferDto> transferDtos = new ArrayList<>(transfers.size());
+        List<Transaction> transactions = new ArrayList<>(transfers.size() * 2);
+        for (Transfer.Request transfer : transfers) {
+            Account from = getTransferAccount(accounts, transfer.getFromAccountNumber());
+            Account to = getTransferAccount(accounts, transfer.getToAccountNumber());
+            validateTransfer(transfer.getUserId(), from, to);
+
+            Long amount = transfer.getAmount();
+            String transferId = transactionIdGenerator.generate();
+            Transaction out = buildTransaction(TRANSFER_OUT, S, from, amount, withdraw(from, amount));
+            Transaction in = buildTransaction(TRANSFER_IN, S, to, amount, deposit(to, amount));
+            out.setTransferId(transferId);
+            in.setTransferId(transferId);
+            transactions.add(out);
+            transactions.add(in);
+            accountInfoCache.invalidateAfterCommit(from.getAccountNumber());
+            accountInfoCache.invalidateAfterCommit(to.getAccountNumber());
+
+            transferDtos.add(TransferDto.builder()
+                    .transferId(transferId)
+                    .fromAccountNumber(from.getAccountNumber())
+                    .toAccountNumber(to.getAccountNumber())
+                    .amount(amount)
+                    .fromTransactionId(out.getTransactionId())
+                    .toTransactionId(in.getTransactionId())
+                    .fromBalanceSnapshot(out.getBalanceSnapshot())
+                    .transactedAt(out.getTransactedAt())
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+        return transferDtos;
+    }
+
+    private Account getTransferAccount(Map<String, Account> accounts, String accountNumber) {
+        Account account = accounts.get(accountNumber);
+        if (account == null) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        return account;
+    }
+
+    private void validateTransfer(Long userId, Account from, Account to) {
+        if (Objects.equals(from.getId(), to.getId())) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        if (!Objects.equals(userId, from.getAccountUser().getId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (from.getAccountStatus() != AccountStatus.IN_USE
+                || to.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    //출금 후 잔액 (hot 계좌는 칸에서 차감, 홀드된 금액은 출금 불가)
+    private Long withdraw(Account account, Long amount) {
+        if (account.isHot()) {
+            return hotAccountService.useBalance(account, amount);
+        }
+        if (account.getBalance() - holdService.getHeldAmount(account.getAccountNumber()) < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        account.useBalance(amount);
+        return account.getBalance();
+    }
+
+    private Long deposit(Account account, Long amount) {
+        accountSnapshotCache.invalidateAfterCommit(account.getAccountNumber());
+        if (account.isHot()) {
+            return hotAccountService.cancelBalance(account, amount);
+        }
+        account.cancelBalance(amount);
+        return account.getBalance();
     }
 
     private Transaction saveAndGetTransaction(
@@ -90,17 +295,73 @@ public class TransactionService {
             TransactionResultType transactionResultType,
             Account account,
             Long amount) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", "")) //1.고유한값 2.순사와 상관없이 랜덤하게 -> UUID사용
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+        return saveAndGetTransaction(transactionType, transactionResultType,
+                account, amount, account.getBalance());
+    }
+
+    private Transaction saveAndGetTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Account account,
+            Long amount,
+            Long balanceSnapshot) {
+        return saveAndGetTransaction(transactionType, transactionResultType,
+                account, account.getAccountNumber(), amount, balanceSnapshot);
+    }
+
+    //계좌번호를 따로 받음 -> 조건부 UPDATE 경로의 계좌 프록시를 초기화하지 않음
+    private Transaction saveAndGetTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Account account,
+            String accountNumber,
+            Long amount,
+            Long balanceSnapshot) {
+        Transaction transaction = transactionRepository.save(
+                buildTransaction(transactionType, transactionResultType, account, amount, balanceSnapshot));
+        //거래 row 는 바뀌지 않으므로 커밋 후 조회 캐시에 바로 넣음
+        transactionQueryCache.putAfterCommit(TransactionDto.fromEntity(transaction, accountNumber));
+        if (transactionResultType == S) {
+            accountInfoCache.invalidateAfterCommit(accountNumber);
+        }
+        return transaction;
+    }
+
+    /**
+     * 엔티티는 그대로 두고 거래 row 와 새 잔액을 그룹 커밋에 넘긴다.
+     * 다른 계좌 요청들과 함께 한번에 커밋된 뒤에 리턴
+     */
+    private Transaction groupCommitTransaction(
+            TransactionType transactionType,
+            Account account,
+            Long amount,
+            Long newBalance) {
+        Transaction transaction = buildTransaction(transactionType, S, account, amount, newBalance);
+        transactionGroupCommitter.commit(LedgerEntry.builder()
+                .transaction(transaction)
+                .accountId(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .newBalance(newBalance)
+                .build());
+        accountInfoCache.invalidateAfterCommit(account.getAccountNumber());
+        return transaction;
+    }
+
+    private Transaction buildTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Account account,
+            Long amount,
+            Long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdIssuer.issue()) //고유한값 -> 설정에 따라 UUID 또는 시간순 id
+                .transactedAt(LocalDateTime.now())
+                .build();
     }
 
     @Transactional
@@ -109,21 +370,73 @@ public class TransactionService {
             String accountNumber,
             Long amount
     ) {
+        return cancelBalance(transactionId, accountNumber, amount, true);
+    }
+
+    private TransactionDto cancelBalance(
+            String transactionId,
+            String accountNumber,
+            Long amount,
+            boolean groupCommit
+    ) {
+        //잔액이 늘어남 -> 커밋 후 락 전 검증용 스냅샷을 지움
+        accountSnapshotCache.invalidateAfterCommit(accountNumber);
+
+        if (balanceMutationMode == BalanceMutationMode.ATOMIC_UPDATE) {
+            return cancelBalanceAtomically(transactionId, accountNumber, amount);
+        }
 
         Transaction transaction = transactionRepository.findByTransactionId(transactionId)
                 .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateCancelBalance(transaction, account, amount);
+        validateCancelBalance(transaction, account.getId(), amount);
+
+        if (account.isHot()) {
+            //USE 와 같이 balanceSnapshot 은 근사값
+            return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, S, account, amount,
+                    hotAccountService.cancelBalance(account, amount)));
+        }
+
+        if (groupCommit && transactionGroupCommitter.isEnabled()) {
+            return TransactionDto.fromEntity(
+                    groupCommitTransaction(CANCEL, account, amount, account.balanceAfterCancel(amount)));
+        }
 
         account.cancelBalance(amount);
 
         return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, S, account, amount));
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
-        if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
+    private TransactionDto cancelBalanceAtomically(
+            String transactionId,
+            String accountNumber,
+            Long amount
+    ) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        //계좌 id 는 바뀌지 않으므로 색인에서
+        AccountRef accountRef = accountIndex.resolve(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        validateCancelBalance(transaction, accountRef.getId(), amount);
+
+        accountRepository.increaseBalance(accountNumber, amount, LocalDateTime.now());
+        AccountBalanceView balanceView = accountRepository.findViewByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, S,
+                accountRepository.getById(balanceView.getId()), accountNumber, amount, balanceView.getBalance()),
+                accountNumber);
+    }
+
+    private void validateCancelBalance(Transaction transaction, Long accountId, Long amount) {
+        if (transaction.getTransferId() != null) {
+            //이체 거래는 사용 취소로 되돌릴 수 없음
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        if (!Objects.equals(transaction.getAccount().getId(), accountId)) {
             throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
         }
         if (!Objects.equals(transaction.getAmount(), amount)) {
@@ -134,16 +447,42 @@ public class TransactionService {
         }
     }
 
+    /**
+     * 한 계좌의 사용/취소 여러건을 요청 순서대로 하나의 DB 트랜잭션에서 처리 (계좌 락은 호출하는 쪽에서 한번만 잡음)
+     * 건별 실패는 결과로 돌려주고 다음 건을 계속 처리한다. 실패하는 건은 엔티티를 바꾸기 전에 검증에서 걸러짐
+     * hot 계좌는 칸 차감이 중간에 실패할 수 있어서 여기로 오면 안된다. (BulkBalanceService 가 건별 트랜잭션으로 처리)
+     * 그룹 커밋은 쓰지 않음 -> 엔티티를 바꾸지 않아서 다음 건이 옛 잔액으로 검증되고,
+     * 다른 계좌 요청들이 묶음 전체를 기다리게 된다. 묶음 자체가 한번의 커밋
+     */
     @Transactional
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
-        saveAndGetTransaction(CANCEL, F, account, amount);
+    public List<BulkBalance.Result> applyBulk(List<BulkBalance.Item> items) {
+        List<BulkBalance.Result> results = new ArrayList<>(items.size());
+        for (BulkBalance.Item item : items) {
+            try {
+                //같은 트랜잭션 안에서 호출 -> 계좌는 영속성 컨텍스트에서 재사용
+                TransactionDto transactionDto = item.getType() == USE
+                        ? useBalance(item.getUse().getUserId(),
+                                item.getUse().getAccountNumber(), item.getUse().getAmount(), false)
+                        : cancelBalance(item.getCancel().getTransactionId(),
+                                item.getCancel().getAccountNumber(), item.getCancel().getAmount(), false);
+                results.add(BulkBalance.Result.success(item.getType(), transactionDto));
+            } catch (AccountException e) {
+                results.add(BulkBalance.Result.failure(item.getType(), e.getErrorCode()));
+            }
+        }
+        return results;
     }
 
+    //캐시에 없을때만 projection 쿼리 한번 -> 엔티티/영속성 컨텍스트 없이 Dto 로 바로 받음
+    //발급된 적 없는 id (거래 id 필터) 는 DB 까지 가지 않음
     public TransactionDto queryTransaction(String transactionId) {
+        return transactionQueryCache.get(transactionId, this::findIssuedTransaction)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+    }
 
-        return TransactionDto.fromEntity(transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+    private Optional<TransactionDto> findIssuedTransaction(String transactionId) {
+        return transactionIdFilter.mightContain(transactionId)
+                ? transactionRepository.findDtoByTransactionId(transactionId)
+                : Optional.empty();
     }
 }
@@ -0,0 +1,11 @@
+package com.example.account.service;
+
+import java.util.UUID;
+
+//기존 방식 : 1.고유한값 2.순서와 상관없이 랜덤하게
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
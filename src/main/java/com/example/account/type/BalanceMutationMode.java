@@ -0,0 +1,22 @@
+package com.example.account.type;
+
+public enum BalanceMutationMode {
+    //계좌 락(@AccountLock)을 잡고 엔티티를 읽고-수정-저장
+    LOCK(true),
+    //조건부 UPDATE 한 문장으로 잔액 변경, 락 없음
+    ATOMIC_UPDATE(false),
+    //락 없이 엔티티 수정, @Version 충돌이 나면 재시도
+    OPTIMISTIC(false),
+    //잔액은 Redis 에서 Lua 스크립트로 변경, DB 는 write-behind 로 나중에 반영
+    REDIS(false);
+
+    private final boolean accountLockRequired;
+
+    BalanceMutationMode(boolean accountLockRequired) {
+        this.accountLockRequired = accountLockRequired;
+    }
+
+    public boolean requiresAccountLock() {
+        return accountLockRequired;
+    }
+}
@@ -20,7 +20,12 @@ public enum ErrorCode {
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
     AMOUNT_EXCEED_BALANCE("거래 금액이 계좌 잔액보다 큽니다."),
-    TRANSACTION_NOT_FOUND("해당 거래가 없습니다.");
+    TRANSACTION_NOT_FOUND("해당 거래가 없습니다."),
+    TRANSACTION_ALREADY_CANCELED("이미 취소된 거래입니다."),
+    IDEMPOTENCY_REQUEST_IN_PROGRESS("같은 Idempotency-Key 요청이 아직 처리중입니다."),
+    IDEMPOTENCY_KEY_REUSED("같은 Idempotency-Key 로 다른 요청을 보냈습니다."),
+    HOLD_NOT_FOUND("해당 홀드가 없거나 만료되었습니다."),
+    ACCOUNT_HAS_HOLDS("홀드가 남아있는 계좌는 hot 계좌로 바꿀 수 없습니다.");
 
     //enum에 대한 설명.
     private final String description;
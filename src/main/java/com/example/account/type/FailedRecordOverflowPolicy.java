@@ -0,0 +1,10 @@
+package com.example.account.type;
+
+public enum FailedRecordOverflowPolicy {
+    //큐가 가득차면 새로 들어온 실패 기록을 버림
+    DROP_NEWEST,
+    //가장 오래된 실패 기록을 버리고 새 기록을 넣음
+    DROP_OLDEST,
+    //요청 쓰레드에서 바로 저장 (기록은 유실되지 않지만 응답이 늦어짐)
+    CALLER_RUNS
+}
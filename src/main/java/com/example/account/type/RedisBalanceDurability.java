@@ -0,0 +1,8 @@
+package com.example.account.type;
+
+public enum RedisBalanceDurability {
+    //Redis 반영 후 바로 응답 (DB 반영은 비동기, 장애시 flush 전 거래 row 유실 가능)
+    REDIS,
+    //거래 row 와 잔액이 DB 에 커밋된 뒤 응답
+    DATABASE
+}
@@ -0,0 +1,8 @@
+package com.example.account.type;
+
+public enum TransactionIdGeneratorType {
+    //UUID 32자리 (랜덤)
+    UUID,
+    //시간순 64bit id -> base62 11자리
+    SNOWFLAKE
+}
@@ -0,0 +1,105 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountNumberAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 계좌 생성 처리량 비교 (./gradlew benchmark 로만 실행)
+ * before : 마지막 계좌 조회 후 +1 (findFirstByOrderByIdDesc)
+ * after : AccountNumberAllocator
+ * 계좌당 10개 제한은 서비스 검증이라 여기서는 저장만 측정한다.
+ */
+@SpringBootTest
+@Tag("benchmark")
+class AccountCreationBenchmarkTest {
+    private static final int THREADS = 8;
+    private static final int ACCOUNTS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void compareAccountNumberStrategies() throws InterruptedException {
+        AccountUser user = accountUserRepository.findById(1L).get();
+
+        Result before = run(user, () -> accountRepository.findFirstByOrderByIdDesc()
+                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
+                .orElse("1000000000"));
+        Result after = run(user, accountNumberAllocator::next);
+
+        System.out.printf("findFirstByOrderByIdDesc : %,.0f accounts/s, %d duplicated numbers%n",
+                before.throughput(), before.duplicates);
+        System.out.printf("AccountNumberAllocator   : %,.0f accounts/s, %d duplicated numbers%n",
+                after.throughput(), after.duplicates);
+        assertEquals(0, after.duplicates);
+    }
+
+    private Result run(AccountUser user, Supplier<String> accountNumbers) throws InterruptedException {
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < ACCOUNTS_PER_THREAD; j++) {
+                    String accountNumber = accountNumbers.get();
+                    issued.add(accountNumber);
+                    accountRepository.save(Account.builder()
+                            .accountUser(user)
+                            .accountStatus(IN_USE)
+                            .accountNumber(accountNumber)
+                            .balance(0L)
+                            .registeredAt(LocalDateTime.now())
+                            .build());
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        int total = THREADS * ACCOUNTS_PER_THREAD;
+        return new Result(total, elapsedNanos, total - issued.size());
+    }
+
+    private static class Result {
+        private final int count;
+        private final long elapsedNanos;
+        private final int duplicates;
+
+        private Result(int count, long elapsedNanos, int duplicates) {
+            this.count = count;
+            this.elapsedNanos = elapsedNanos;
+            this.duplicates = duplicates;
+        }
+
+        private double throughput() {
+            return count / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
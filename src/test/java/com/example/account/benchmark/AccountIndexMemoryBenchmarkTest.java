@@ -0,0 +1,132 @@
+package com.example.account.benchmark;
+
+import com.example.account.repository.AccountRefView;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.AccountIndex;
+import com.example.account.service.AccountRef;
+import com.example.account.type.AccountStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 계좌 색인 메모리 사용량 비교 (./gradlew benchmark 로만 실행)
+ * before : ConcurrentHashMap<String, AccountRef> (계좌번호 문자열 + 박싱된 값 객체)
+ * after : AccountIndex (LongLongHashMap, 키/값 long)
+ * DB 대신 id 순서로 projection 을 만들어 주는 mock 으로 적재한다.
+ */
+@Tag("benchmark")
+class AccountIndexMemoryBenchmarkTest {
+    private static final int ACCOUNTS = 2_000_000;
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    @Test
+    void compareIndexFootprint() {
+        long baseline = usedHeap();
+        Map<String, AccountRef> boxed = new ConcurrentHashMap<>();
+        for (int id = 1; id <= ACCOUNTS; id++) {
+            boxed.put(String.valueOf(FIRST_ACCOUNT_NUMBER + id), new AccountRef(id, id % 1000 + 1, AccountStatus.IN_USE));
+        }
+        long boxedBytes = usedHeap() - baseline;
+        assertEquals(ACCOUNTS, boxed.size());
+        boxed = null;
+
+        baseline = usedHeap();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccountIndex accountIndex = new AccountIndex(pagedRepository(), redissonClient(), meterRegistry);
+        accountIndex.init();
+        long start = System.nanoTime();
+        accountIndex.load();
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        long indexBytes = usedHeap() - baseline;
+        double reportedBytes = meterRegistry.get("account.index.memory").gauge().value();
+
+        start = System.nanoTime();
+        for (int id = 1; id <= ACCOUNTS; id++) {
+            accountIndex.resolve(String.valueOf(FIRST_ACCOUNT_NUMBER + id));
+        }
+        long lookupNanos = (System.nanoTime() - start) / ACCOUNTS;
+
+        System.out.printf("ConcurrentHashMap<String, AccountRef> : %,.1f bytes/account (heap)%n",
+                (double) boxedBytes / ACCOUNTS);
+        System.out.printf("AccountIndex                          : %,.1f bytes/account (heap), %,.1f bytes/account (gauge)%n",
+                (double) indexBytes / ACCOUNTS, reportedBytes / ACCOUNTS);
+        System.out.printf("AccountIndex load %,d ms, lookup %d ns/op%n", loadMillis, lookupNanos);
+        assertTrue(reportedBytes / ACCOUNTS <= 24);
+        assertEquals((double) ACCOUNTS, meterRegistry.get("account.index.entries").gauge().value());
+    }
+
+    //id 순서 페이지 (findRefsAfter) 를 흉내냄
+    private AccountRepository pagedRepository() {
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        given(accountRepository.count()).willReturn((long) ACCOUNTS);
+        given(accountRepository.findRefsAfter(anyLong(), any())).willAnswer(invocation -> {
+            long lastId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            List<AccountRefView> page = new ArrayList<>(pageable.getPageSize());
+            for (long id = lastId + 1; id <= ACCOUNTS && page.size() < pageable.getPageSize(); id++) {
+                page.add(new Ref(id));
+            }
+            return page;
+        });
+        return accountRepository;
+    }
+
+    private RedissonClient redissonClient() {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        given(redissonClient.getTopic(any(String.class), any(StringCodec.class))).willReturn(mock(RTopic.class));
+        return redissonClient;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class Ref implements AccountRefView {
+        private final long id;
+
+        private Ref(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return String.valueOf(FIRST_ACCOUNT_NUMBER + id);
+        }
+
+        @Override
+        public Long getUserId() {
+            return id % 1000 + 1;
+        }
+
+        @Override
+        public AccountStatus getAccountStatus() {
+            return AccountStatus.IN_USE;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.account.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * PersistenceStatementBenchmarkTest 와 같은 시나리오를 예전 설정으로 측정
+ * (id 하나마다 시퀀스 조회, JDBC 배치 / insert 정렬 없음)
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=0",
+        "spring.jpa.properties.hibernate.order_inserts=false",
+        "spring.jpa.properties.hibernate.order_updates=false",
+        "spring.jpa.properties.account.id.increment-size.account-seq=1",
+        "spring.jpa.properties.account.id.increment-size.account-user-seq=1",
+        "spring.jpa.properties.account.id.increment-size.transaction-seq=1",
+        "spring.jpa.properties.account.id.increment-size.sub-balance-seq=1"
+})
+@Tag("benchmark")
+class PersistenceStatementBaselineBenchmarkTest extends PersistenceStatementBenchmarkTest {
+}
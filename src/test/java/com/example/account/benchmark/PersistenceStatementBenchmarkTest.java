@@ -0,0 +1,100 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.BulkBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountNumberAllocator;
+import com.example.account.service.TransactionService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 잔액 사용 한 건당 JDBC 문장 수 (./gradlew benchmark 로만 실행)
+ * 이 클래스는 현재 설정(pooled-lo, JDBC 배치, insert/update 정렬)을 측정하고
+ * PersistenceStatementBaselineBenchmarkTest 는 같은 시나리오를 예전 설정으로 측정한다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Tag("benchmark")
+class PersistenceStatementBenchmarkTest {
+    private static final int OPERATIONS = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private AccountUser user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = accountUserRepository.findById(1L).get();
+    }
+
+    @Test
+    void statementsPerOperation() {
+        String accountNumber = createAccount();
+
+        statistics.clear();
+        for (int i = 0; i < OPERATIONS; i++) {
+            transactionService.useBalance(user.getId(), accountNumber, 10L);
+        }
+        print("useBalance (1 transaction each)");
+
+        List<BulkBalance.Item> items = new ArrayList<>(OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            items.add(new BulkBalance.Item(USE, new UseBalance.Request(user.getId(), accountNumber, 10L), null));
+        }
+        statistics.clear();
+        transactionService.applyBulk(items);
+        print("applyBulk (" + OPERATIONS + " uses, 1 transaction)");
+    }
+
+    private String createAccount() {
+        String accountNumber = accountNumberAllocator.next();
+        accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .accountNumber(accountNumber)
+                .balance(1_000_000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        return accountNumber;
+    }
+
+    //시퀀스 조회도 JDBC 문장으로 세어짐, 배치로 묶인 insert/update 는 문장 하나로 준비됨
+    private void print(String scenario) {
+        System.out.printf("[%s] %s : %.2f prepared statements/op (%d inserts, %d updates)%n",
+                getClass().getSimpleName(), scenario,
+                statistics.getPrepareStatementCount() / (double) OPERATIONS,
+                statistics.getEntityInsertCount(),
+                statistics.getEntityUpdateCount());
+    }
+}
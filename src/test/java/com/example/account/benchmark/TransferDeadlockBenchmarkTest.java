@@ -0,0 +1,116 @@
+package com.example.account.benchmark;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.BatchTransfer;
+import com.example.account.dto.Transfer;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountNumberAllocator;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 서로 반대 방향 이체 / 여러 계좌를 건드리는 배치 이체를 동시에 돌려서 멈추지 않는지 확인 (./gradlew benchmark 로만 실행)
+ * 락을 못잡은 요청(ACCOUNT_TRANSACTION_LOCK)은 실패로만 세고, 모든 쓰레드가 제한 시간 안에 끝나야 한다.
+ * 끝난 뒤 계좌 잔액 합계는 처음과 같아야 한다.
+ */
+@SpringBootTest
+@Tag("benchmark")
+class TransferDeadlockBenchmarkTest {
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final long INITIAL_BALANCE = 1_000_000L;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void concurrentTransfersDoNotDeadlock() throws Exception {
+        AccountUser user = accountUserRepository.findById(1L).get();
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountNumber = accountNumberAllocator.next();
+            accountRepository.save(Account.builder()
+                    .accountUser(user)
+                    .accountStatus(IN_USE)
+                    .accountNumber(accountNumber)
+                    .balance(INITIAL_BALANCE)
+                    .registeredAt(LocalDateTime.now())
+                    .build());
+            accountNumbers.add(accountNumber);
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger lockFailed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    try {
+                        if (i % 4 == 0) {
+                            //from -> to, to -> from 을 한 배치로 -> 계좌 순서가 요청마다 다름
+                            transactionController.transferAll(new BatchTransfer.Request(Arrays.asList(
+                                    transfer(user, accountNumbers.get(from), accountNumbers.get(to)),
+                                    transfer(user, accountNumbers.get(to), accountNumbers.get((to + 1) % ACCOUNTS)))),
+                                    null);
+                        } else {
+                            transactionController.transfer(
+                                    transfer(user, accountNumbers.get(from), accountNumbers.get(to)), null);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (AccountException e) {
+                        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, e.getErrorCode());
+                        lockFailed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        //락 대기(5초)보다 충분히 길게 -> 데드락이면 여기서 실패
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsedNanos = System.nanoTime() - start;
+
+        long total = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                .mapToLong(Account::getBalance)
+                .sum();
+        System.out.printf("transfers : %d succeeded, %d lock timeouts, %,.0f requests/s%n",
+                succeeded.get(), lockFailed.get(),
+                THREADS * TRANSFERS_PER_THREAD / (elapsedNanos / 1_000_000_000.0));
+        assertEquals(INITIAL_BALANCE * ACCOUNTS, total);
+    }
+
+    private Transfer.Request transfer(AccountUser user, String from, String to) {
+        return new Transfer.Request(user.getId(), from, to, 10L);
+    }
+}
@@ -2,11 +2,13 @@ package com.example.account.controller;
 
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.service.AccountService;
+import com.example.account.service.HotAccountService;
 import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -34,6 +36,9 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private HotAccountService hotAccountService;
+
 
     //mocking울 통해 가짜 서비스를 만들고 mcv 에 연결해서 접근하여 테스트한다
 
@@ -94,22 +99,22 @@ class AccountControllerTest {
     @Test
     void successGetAccountsByUserId() throws Exception {
         //given
-        List<AccountDto> accountDtos = Arrays.asList(AccountDto.builder()
+        List<AccountInfo> accountInfos = Arrays.asList(AccountInfo.builder()
                         .accountNumber("1234567890")
                         .balance(1000L)
                         .build(),
-                AccountDto.builder()
+                AccountInfo.builder()
                         .accountNumber("1111111111")
                         .balance(2000L)
                         .build(),
-                AccountDto.builder()
+                AccountInfo.builder()
                         .accountNumber("222222222")
                         .balance(3000L)
                         .build()
         );
 
         given(accountService.getAccountsByUserId(anyLong()))
-                .willReturn(accountDtos);
+                .willReturn(accountInfos);
         //when
         //then
         mockMvc.perform(get("/account?user_id=1"))
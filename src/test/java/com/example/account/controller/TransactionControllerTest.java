@@ -1,6 +1,8 @@
 package com.example.account.controller;
 
 import com.example.account.dto.*;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.RedisBalanceService;
 import com.example.account.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -30,6 +32,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private RedisBalanceService redisBalanceService;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
     //테스트에 필요한 것들 아래 가져오기
     @Autowired
     private MockMvc mockMvc;
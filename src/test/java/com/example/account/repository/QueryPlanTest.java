@@ -0,0 +1,222 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.type.AccountStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 자주 호출되는 조회가 인덱스를 타는지 확인 (큰 데이터를 넣고 실제로 나가는 SQL 을 EXPLAIN)
+ * 인덱스 / 유니크 제약이 빠지면 실행 계획에 tableScan 이 나타나서 실패한다.
+ * 다른 테스트와 DB, Redis 포트를 나눠서 별도 컨텍스트로 실행
+ * 제외 : findFirstByOrderByIdDesc (사용하지 않음), findByHotTrue (재분배 주기마다 한번 전체를 읽음)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan",
+        "spring.redis.port=6381",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.account.repository.QueryPlanTest$CapturingStatementInspector"
+})
+class QueryPlanTest {
+    private static final int USERS = 200;
+    private static final int ACCOUNTS_PER_USER = 50;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 5;
+    private static final long ID_BASE = 1_000_000L;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SubBalanceRepository subBalanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void seed() {
+        Integer seeded = jdbcTemplate.queryForObject(
+                "select count(*) from account_user where id = ?", Integer.class, ID_BASE);
+        if (seeded != null && seeded > 0) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> accounts = new ArrayList<>();
+        List<Object[]> transactions = new ArrayList<>();
+        List<Object[]> subBalances = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            long userId = ID_BASE + user;
+            users.add(new Object[]{userId, "user" + user, ACCOUNTS_PER_USER, now});
+            for (int i = 0; i < ACCOUNTS_PER_USER; i++) {
+                long accountId = ID_BASE + (long) user * ACCOUNTS_PER_USER + i;
+                boolean hot = i == 0;
+                accounts.add(new Object[]{accountId, userId, String.valueOf(9_000_000_000L + accountId),
+                        AccountStatus.IN_USE.name(), 10_000L, hot, hot ? 2 : null, now});
+                if (hot) {
+                    subBalances.add(new Object[]{accountId * 2, accountId, 0, 5_000L});
+                    subBalances.add(new Object[]{accountId * 2 + 1, accountId, 1, 5_000L});
+                }
+                for (int t = 0; t < TRANSACTIONS_PER_ACCOUNT; t++) {
+                    long transactionId = accountId * TRANSACTIONS_PER_ACCOUNT + t;
+                    transactions.add(new Object[]{transactionId, accountId, "USE", "S", 100L, 9_900L,
+                            "seed-" + transactionId, Timestamp.valueOf(LocalDateTime.now().minusDays(t))});
+                }
+            }
+        }
+
+        jdbcTemplate.batchUpdate("insert into account_user(id, name, account_count, created_at) values (?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("insert into account(id, account_user_id, account_number, account_status, " +
+                "balance, hot, sub_balance_slots, registered_at, version) values (?, ?, ?, ?, ?, ?, ?, ?, 0)", accounts);
+        jdbcTemplate.batchUpdate("insert into sub_balance(id, account_id, slot, balance) values (?, ?, ?, ?)",
+                subBalances);
+        jdbcTemplate.batchUpdate("insert into transaction(id, account_id, transaction_type, " +
+                "transaction_result_type, amount, balance_snapshot, transaction_id, transacted_at) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?)", transactions);
+        //옵티마이저 통계 갱신
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void accountLookupsUseIndexes() {
+        AccountUser user = AccountUser.builder().id(ID_BASE).build();
+        String accountNumber = String.valueOf(9_000_000_000L + ID_BASE);
+
+        assertIndexed(() -> accountRepository.findByAccountNumber(accountNumber));
+        assertIndexed(() -> accountRepository.findViewByAccountNumber(accountNumber));
+        assertIndexed(() -> accountRepository.findRefByAccountNumber(accountNumber));
+        assertIndexed(() -> accountRepository.findByAccountNumberIn(
+                Arrays.asList(accountNumber, String.valueOf(9_000_000_001L + ID_BASE))));
+        assertIndexed(() -> accountRepository.findByAccountUser(user));
+        assertIndexed(() -> accountRepository.findInfosByAccountUserId(ID_BASE));
+        assertIndexed(() -> accountRepository.findWithAccountUserById(ID_BASE));
+        assertIndexed(() -> accountRepository.findMaxAccountNumber());
+    }
+
+    @Test
+    void balanceUpdatesUseIndexes() {
+        String accountNumber = String.valueOf(9_000_000_000L + ID_BASE);
+
+        assertIndexed(() -> accountRepository.decreaseBalanceIfEnough(
+                accountNumber, ID_BASE, 1L, AccountStatus.IN_USE, LocalDateTime.now()));
+        assertIndexed(() -> accountRepository.increaseBalance(accountNumber, 1L, LocalDateTime.now()));
+    }
+
+    @Test
+    void accountCountUpdatesUsePrimaryKey() {
+        assertIndexed(() -> accountUserRepository.increaseAccountCountIfBelow(ID_BASE, 10));
+        assertIndexed(() -> accountUserRepository.decreaseAccountCount(ID_BASE));
+    }
+
+    @Test
+    void transactionLookupsUseIndexes() {
+        String transactionId = "seed-" + ID_BASE * TRANSACTIONS_PER_ACCOUNT;
+
+        assertIndexed(() -> transactionRepository.findByTransactionId(transactionId));
+        assertIndexed(() -> transactionRepository.findWithAccountByTransactionId(transactionId));
+        assertIndexed(() -> transactionRepository.findDtoByTransactionId(transactionId));
+    }
+
+    @Test
+    void subBalanceLookupsUseIndexes() {
+        assertIndexed(() -> subBalanceRepository.findByAccountIdAndSlot(ID_BASE, 0));
+        assertIndexed(() -> subBalanceRepository.findByAccountIdOrderBySlot(ID_BASE));
+        assertIndexed(() -> subBalanceRepository.sumBalance(ID_BASE));
+        assertIndexed(() -> subBalanceRepository.sumBalances(Arrays.asList(ID_BASE, ID_BASE + ACCOUNTS_PER_USER)));
+    }
+
+    @Test
+    void ledgerScanUsesAccountIdTransactedAtIndex() {
+        //계좌별 기간 조회 (원장) -> (account_id, transacted_at) 인덱스
+        String plan = explain("select * from transaction where account_id = ? and transacted_at >= ? " +
+                "order by transacted_at");
+
+        assertTrue(plan.contains("IDX_TRANSACTION_ACCOUNT_ID_TRANSACTED_AT"), plan);
+    }
+
+    //메소드가 실행한 select / update 문마다 EXPLAIN
+    private void assertIndexed(Runnable repositoryCall) {
+        List<String> statements = new ArrayList<>();
+        CapturingStatementInspector.CAPTURED.set(statements);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repositoryCall.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            CapturingStatementInspector.CAPTURED.remove();
+        }
+
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            String normalized = sql.trim().toLowerCase();
+            if (!normalized.startsWith("select") && !normalized.startsWith("update")) {
+                continue;
+            }
+            String plan = explain(sql);
+            assertFalse(plan.contains("tableScan"), plan);
+        }
+    }
+
+    private String explain(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            //실행 계획만 보므로 파라미터 값은 상관없음
+            int parameterCount = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameterCount; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to explain " + sql, e);
+        }
+    }
+
+    //이 테스트 쓰레드에서 나간 SQL 만 모음 (백그라운드 작업 SQL 제외)
+    public static class CapturingStatementInspector implements StatementInspector {
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = CAPTURED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
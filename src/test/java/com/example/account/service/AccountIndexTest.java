@@ -0,0 +1,140 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountRefView;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountIndexTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic topic;
+
+    private AccountIndex accountIndex;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic(AccountIndex.TOPIC, StringCodec.INSTANCE)).willReturn(topic);
+        accountIndex = new AccountIndex(accountRepository, redissonClient, new SimpleMeterRegistry());
+        accountIndex.init();
+    }
+
+    @Test
+    void loadedAccountsResolveWithoutQuery() {
+        //given
+        AccountRefView view = refView(3L, "1000000012", 12L, AccountStatus.IN_USE);
+        given(accountRepository.count()).willReturn(1L);
+        given(accountRepository.findRefsAfter(anyLong(), any()))
+                .willReturn(Collections.singletonList(view), Collections.emptyList());
+        accountIndex.load();
+
+        //when
+        AccountRef accountRef = accountIndex.resolve("1000000012").get();
+
+        //then
+        assertEquals(3L, accountRef.getId());
+        assertEquals(12L, accountRef.getUserId());
+        assertEquals(AccountStatus.IN_USE, accountRef.getAccountStatus());
+        verify(accountRepository, never()).findRefByAccountNumber(anyString());
+    }
+
+    @Test
+    void missFallsBackToQueryOnce() {
+        //given
+        AccountRefView view = refView(5L, "1000000020", 7L, AccountStatus.IN_USE);
+        given(accountRepository.findRefByAccountNumber("1000000020")).willReturn(Optional.of(view));
+
+        //when
+        accountIndex.resolve("1000000020");
+        AccountRef accountRef = accountIndex.resolve("1000000020").get();
+
+        //then
+        assertEquals(5L, accountRef.getId());
+        verify(accountRepository, times(1)).findRefByAccountNumber("1000000020");
+    }
+
+    @Test
+    void unknownAccountIsEmpty() {
+        //given
+        given(accountRepository.findRefByAccountNumber("1000000099")).willReturn(Optional.empty());
+
+        //when
+        Optional<AccountRef> accountRef = accountIndex.resolve("1000000099");
+
+        //then
+        assertFalse(accountRef.isPresent());
+    }
+
+    @Test
+    void unregisterUpdatesStatusAndNotifiesOtherNodes() {
+        //given
+        accountIndex.putAfterCommit(Account.builder()
+                .id(3L)
+                .accountNumber("1000000012")
+                .accountUser(AccountUser.builder().id(12L).build())
+                .accountStatus(AccountStatus.IN_USE)
+                .build());
+
+        //when
+        accountIndex.unregisterAfterCommit("1000000012");
+
+        //then
+        assertEquals(AccountStatus.UNREGISTERED, accountIndex.resolve("1000000012").get().getAccountStatus());
+        verify(topic).publishAsync(eq("1000000012"));
+    }
+
+    @Test
+    void packKeepsIdUserAndStatus() {
+        //given
+        long id = Integer.MAX_VALUE;
+        long userId = Integer.MAX_VALUE - 1L;
+
+        //when
+        AccountRef accountRef = AccountIndex.unpack(AccountIndex.pack(id, userId, AccountStatus.UNREGISTERED));
+
+        //then
+        assertEquals(id, accountRef.getId());
+        assertEquals(userId, accountRef.getUserId());
+        assertEquals(AccountStatus.UNREGISTERED, accountRef.getAccountStatus());
+        assertEquals(0L, AccountIndex.toKey("10000000a2"));
+    }
+
+    private AccountRefView refView(Long id, String accountNumber, Long userId, AccountStatus accountStatus) {
+        AccountRefView view = mock(AccountRefView.class);
+        given(view.getId()).willReturn(id);
+        given(view.getAccountNumber()).willReturn(accountNumber);
+        given(view.getUserId()).willReturn(userId);
+        given(view.getAccountStatus()).willReturn(accountStatus);
+        return view;
+    }
+}
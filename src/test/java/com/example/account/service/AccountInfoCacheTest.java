@@ -0,0 +1,108 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountInfoCacheTest {
+    @Mock
+    private AccountIndex accountIndex;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic topic;
+
+    private AccountInfoCache accountInfoCache;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic(AccountInfoCache.TOPIC, LongCodec.INSTANCE)).willReturn(topic);
+        accountInfoCache = new AccountInfoCache(accountIndex, redissonClient, new SimpleMeterRegistry());
+        accountInfoCache.init();
+    }
+
+    @Test
+    void secondReadIsServedFromCache() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, List<AccountInfo>> loader = userId -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(Collections.singletonList(new AccountInfo("1000000012", 1000L)));
+        };
+
+        //when
+        accountInfoCache.get(12L, loader);
+        List<AccountInfo> accountInfos = accountInfoCache.get(12L, loader);
+
+        //then
+        assertEquals(1, loads.get());
+        assertEquals("1000000012", accountInfos.get(0).getAccountNumber());
+        //여러 요청이 같은 목록을 보므로 바꿀 수 없음
+        assertThrows(UnsupportedOperationException.class, () -> accountInfos.add(new AccountInfo("1000000013", 0L)));
+    }
+
+    @Test
+    void balanceChangeInvalidatesOwnersList() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, List<AccountInfo>> loader = userId -> {
+            loads.incrementAndGet();
+            return Collections.singletonList(new AccountInfo("1000000012", 1000L));
+        };
+        given(accountIndex.resolve("1000000012"))
+                .willReturn(Optional.of(new AccountRef(3L, 12L, AccountStatus.IN_USE)));
+        accountInfoCache.get(12L, loader);
+
+        //when
+        accountInfoCache.invalidateAfterCommit("1000000012");
+        accountInfoCache.get(12L, loader);
+
+        //then
+        assertEquals(2, loads.get());
+        verify(topic).publishAsync(12L);
+    }
+
+    @Test
+    void loaderFailureIsNotCached() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, List<AccountInfo>> loader = userId -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
+            return Collections.emptyList();
+        };
+
+        //when
+        assertThrows(AccountException.class, () -> accountInfoCache.get(12L, loader));
+        List<AccountInfo> accountInfos = accountInfoCache.get(12L, loader);
+
+        //then
+        assertTrue(accountInfos.isEmpty());
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private RScript rScript;
+
+    @InjectMocks
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void allocateFromReservedBlocks() {
+        //given
+        ReflectionTestUtils.setField(accountNumberAllocator, "blockSize", 3L);
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.empty());
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        given(rScript.<Long>eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                anyList(), eq("999999999"), eq("3")))
+                .willReturn(1000000002L, 1000000005L);
+
+        //when
+        //then
+        assertEquals("1000000000", accountNumberAllocator.next());
+        assertEquals("1000000001", accountNumberAllocator.next());
+        assertEquals("1000000002", accountNumberAllocator.next());
+        assertEquals("1000000003", accountNumberAllocator.next());
+        //묶음 예약은 3개마다 한번 (하한 확인과 같이)
+        verify(rScript, times(2)).eval(eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.INTEGER), anyList(), eq("999999999"), eq("3"));
+    }
+
+    @Test
+    void reserveAboveLargestAccountNumber() {
+        //given
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.of("1000000012"));
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        given(rScript.<Long>eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                anyList(), eq("1000000012"), eq("100")))
+                .willReturn(1000000112L);
+
+        //when
+        String accountNumber = accountNumberAllocator.next();
+
+        //then
+        assertEquals("1000000013", accountNumber);
+    }
+
+    @Test
+    void checkFloorOnEveryBlock() {
+        //given
+        ReflectionTestUtils.setField(accountNumberAllocator, "blockSize", 1L);
+        given(accountRepository.findMaxAccountNumber())
+                .willReturn(Optional.of("1000000012"), Optional.of("1000000013"));
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        given(rScript.<Long>eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                anyList(), anyString(), eq("1")))
+                .willReturn(1000000013L, 1000000014L);
+
+        //when
+        accountNumberAllocator.next();
+        accountNumberAllocator.next();
+
+        //then
+        //Redis 키가 없어진 뒤에도 하한이 같이 넘어가도록 묶음마다 DB 최대값을 넘김
+        verify(rScript, times(1)).eval(eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.INTEGER), anyList(), eq("1000000012"), eq("1"));
+        verify(rScript, times(1)).eval(eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.INTEGER), anyList(), eq("1000000013"), eq("1"));
+    }
+
+    @Test
+    void failWhenAccountNumbersExhausted() {
+        //given
+        given(accountRepository.findMaxAccountNumber()).willReturn(Optional.of("9999999999"));
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        given(rScript.<Long>eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                anyList(), eq("9999999999"), eq("100")))
+                .willReturn(10000000099L);
+
+        //when
+        //then
+        assertThrows(IllegalStateException.class, () -> accountNumberAllocator.next());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSerialExecutorTest {
+
+    private AccountSerialExecutor accountSerialExecutor;
+
+    @BeforeEach
+    void setUp() {
+        accountSerialExecutor = new AccountSerialExecutor();
+        ReflectionTestUtils.setField(accountSerialExecutor, "enabled", true);
+        ReflectionTestUtils.setField(accountSerialExecutor, "workers", 4);
+        ReflectionTestUtils.setField(accountSerialExecutor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(accountSerialExecutor, "waitTimeoutMs", 200L);
+        accountSerialExecutor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        accountSerialExecutor.stop();
+    }
+
+    @Test
+    void sameAccountRunsOnSameThread() throws Throwable {
+        //given
+        //when
+        Object first = accountSerialExecutor.execute("1000000000", () -> Thread.currentThread().getName());
+        Object second = accountSerialExecutor.execute("1000000000", () -> Thread.currentThread().getName());
+        //then
+        assertEquals(first, second);
+    }
+
+    @Test
+    void rethrowTaskException() {
+        //given
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                accountSerialExecutor.execute("1000000000", () -> {
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    void sameAccountRunsInOrder() throws Exception {
+        //given
+        ReflectionTestUtils.setField(accountSerialExecutor, "waitTimeoutMs", 5000L);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        //when
+        Thread first = new Thread(() -> {
+            try {
+                accountSerialExecutor.execute("1000000000", () -> {
+                    started.countDown();
+                    release.await();
+                    executed.add(1);
+                    return null;
+                });
+            } catch (Throwable ignored) {
+            }
+        });
+        first.start();
+        started.await();
+        Thread second = new Thread(() -> {
+            try {
+                accountSerialExecutor.execute("1000000000", () -> executed.add(2));
+            } catch (Throwable ignored) {
+            }
+        });
+        second.start();
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        //then
+        assertEquals(List.of(1, 2), executed);
+    }
+
+    @Test
+    void failWhenTaskNotStartedInTime() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        Thread blocker = new Thread(() -> {
+            try {
+                accountSerialExecutor.execute("1000000000", () -> {
+                    release.await();
+                    return null;
+                });
+            } catch (Throwable ignored) {
+            }
+        });
+        blocker.start();
+        Thread.sleep(50L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                accountSerialExecutor.execute("1000000000", () -> "never"));
+        release.countDown();
+        blocker.join(5000);
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+}
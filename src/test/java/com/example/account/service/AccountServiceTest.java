@@ -3,10 +3,13 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.SubBalanceRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
 import com.example.account.type.ErrorCode;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,15 +18,22 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -32,9 +42,27 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountUserCache accountUserCache;
+
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private SubBalanceRepository subBalanceRepository;
+
+    @Mock
+    private AccountIndex accountIndex;
+
+    @Mock
+    private AccountInfoCache accountInfoCache;
+
+    @Mock
+    private RedisBalanceStore redisBalanceStore;
+
     //  위 mock이 2개가 들어간 서비스가 생성됨
 
     @InjectMocks
@@ -47,11 +75,12 @@ class AccountServiceTest {
                 .id(12L)
                 .name("pobi").build();
         //3번의 mocking을 해야함. 실제 서비스 로직안에서 3번 리턴하는 받아서 작동하니까?
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountNumber("1000000012").build()));
+        given(accountUserRepository.increaseAccountCountIfBelow(anyLong(), anyInt()))
+                .willReturn(1);
+        given(accountNumberAllocator.next())
+                .willReturn("1000000013");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -78,10 +107,12 @@ class AccountServiceTest {
                 .id(15L)
                 .name("pobi").build();
         //3번의 mocking을 해야함. 실제 서비스 로직안에서 3번 리턴하는 받아서 작동하니까?
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountUserRepository.increaseAccountCountIfBelow(anyLong(), anyInt()))
+                .willReturn(1);
+        given(accountNumberAllocator.next())
+                .willReturn("1000000000");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -108,7 +139,7 @@ class AccountServiceTest {
                 .id(15L)
                 .name("pobi").build();
         //3번의 mocking을 해야함. 실제 서비스 로직안에서 3번 리턴하는 받아서 작동하니까?
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
         //계좌번호 +1 증가 증명
@@ -130,15 +161,17 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(15L)
                 .name("pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10);
+        //이미 10개 -> 조건부 UPDATE 가 아무 row 도 바꾸지 않음
+        given(accountUserRepository.increaseAccountCountIfBelow(15L, 10))
+                .willReturn(0);
         //when
 
         AccountException exception = assertThrows(AccountException.class, () -> accountService.createAccount(1L, 1000L));
         //then
         assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, exception.getErrorCode());
+        verify(accountRepository, never()).save(any());
         //then
     }
 
@@ -150,7 +183,7 @@ class AccountServiceTest {
                 .id(12L)
                 .name("Pobi").build();
         //3번의 mocking을 해야함. 실제 서비스 로직안에서 3번 리턴하는 받아서 작동하니까?
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -165,13 +198,44 @@ class AccountServiceTest {
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000012", captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+        verify(accountUserRepository, times(1)).decreaseAccountCount(12L);
+    }
+
+    @Test
+    void deleteAccountRollbackReregistersRedisBalance() {
+        //given
+        ReflectionTestUtils.setField(accountService, "balanceMutationMode", BalanceMutationMode.REDIS);
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .balance(0L)
+                        .accountNumber("1000000012").build()));
+        given(redisBalanceStore.unregister("1000000012")).willReturn(0L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //when
+            accountService.deleteAccount(1L, "1000000012");
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        //then
+        //DB 해지가 롤백되면 Redis 도 다시 사용 가능
+        verify(redisBalanceStore, times(1)).reregister("1000000012");
     }
 
     @Test
     @DisplayName("해당 유저 없음 - 계좌 해지 실패")
     void deleteAccount_UserNotFound() {
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
@@ -194,7 +258,7 @@ class AccountServiceTest {
                 .id(12L)
                 .name("pobi").build();
         //3번의 mocking을 해야함. 실제 서비스 로직안에서 3번 리턴하는 받아서 작동하니까?
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
@@ -216,7 +280,7 @@ class AccountServiceTest {
                 .id(13L)
                 .name("Harry").build();
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -237,7 +301,7 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .id(12L)
                 .name("Pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -258,7 +322,7 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .id(12L)
                 .name("Pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -275,56 +339,94 @@ class AccountServiceTest {
     @Test
     void successGetAccountsByUserId() {
         //given
-        AccountUser pobi = AccountUser.builder()
-                .id(12L)
-                .name("Pobi").build();
-
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountUser(pobi)
+        List<AccountInfo> accounts = Arrays.asList(
+                AccountInfo.builder()
                         .accountNumber("1111111111")
                         .balance(1000L)
                         .build(),
-                Account.builder()
-                        .accountUser(pobi)
+                AccountInfo.builder()
                         .accountNumber("2222222222")
                         .balance(2000L)
                         .build(),
-                Account.builder()
-                        .accountUser(pobi)
+                AccountInfo.builder()
                         .accountNumber("3333333333")
                         .balance(3000L)
                         .build()
         );
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(pobi));
-
-        given(accountRepository.findByAccountUser(any()))
+        givenAccountInfoCacheMiss();
+        given(accountRepository.findInfosByAccountUserId(anyLong()))
                 .willReturn(accounts);
         //when
-        List<AccountDto> accountDtos = accountService.getAccountsByUserId(1L);
+        List<AccountInfo> accountInfos = accountService.getAccountsByUserId(1L);
         //then
 
-        assertEquals(3, accountDtos.size());
-        assertEquals("1111111111", accountDtos.get(0).getAccountNumber());
-        assertEquals(1000, accountDtos.get(0).getBalance());
-        assertEquals("2222222222", accountDtos.get(1).getAccountNumber());
-        assertEquals(2000, accountDtos.get(1).getBalance());
-        assertEquals("3333333333", accountDtos.get(2).getAccountNumber());
-        assertEquals(3000, accountDtos.get(2).getBalance());
+        //계좌가 있으면 사용자 조회 없이 쿼리 한번
+        verify(accountUserCache, never()).existsById(anyLong());
+        assertEquals(3, accountInfos.size());
+        assertEquals("1111111111", accountInfos.get(0).getAccountNumber());
+        assertEquals(1000, accountInfos.get(0).getBalance());
+        assertEquals("2222222222", accountInfos.get(1).getAccountNumber());
+        assertEquals(2000, accountInfos.get(1).getBalance());
+        assertEquals("3333333333", accountInfos.get(2).getAccountNumber());
+        assertEquals(3000, accountInfos.get(2).getBalance());
 
     }
 
     @Test
     void failedToGetAccounts() {
         //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        givenAccountInfoCacheMiss();
+        given(accountRepository.findInfosByAccountUserId(anyLong()))
+                .willReturn(Collections.emptyList());
+        given(accountUserCache.existsById(anyLong()))
+                .willReturn(false);
         //when
         AccountException exception = assertThrows(AccountException.class, () -> accountService.getAccountsByUserId(1L));
         //then
         assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
     }
+
+    @Test
+    void getAccountsFromCache() {
+        //given
+        List<AccountInfo> cached = Collections.singletonList(AccountInfo.builder()
+                .accountNumber("1111111111")
+                .balance(1000L)
+                .build());
+        given(accountInfoCache.get(anyLong(), any()))
+                .willReturn(cached);
+        //when
+        List<AccountInfo> accountInfos = accountService.getAccountsByUserId(1L);
+        //then
+        assertSame(cached, accountInfos);
+        verify(accountRepository, never()).findInfosByAccountUserId(anyLong());
+    }
+
+    @Test
+    void redisBalancesBuildNewAccountInfos() {
+        //given
+        ReflectionTestUtils.setField(accountService, "balanceMutationMode", BalanceMutationMode.REDIS);
+        AccountInfo loaded = new AccountInfo("1111111111", 1000L);
+        givenAccountInfoCacheMiss();
+        given(accountRepository.findInfosByAccountUserId(anyLong()))
+                .willReturn(Arrays.asList(loaded, new AccountInfo("2222222222", 2000L)));
+        given(redisBalanceStore.getBalances(Arrays.asList("1111111111", "2222222222")))
+                .willReturn(Arrays.asList(1500L, null));
+        //when
+        List<AccountInfo> accountInfos = accountService.getAccountsByUserId(1L);
+        //then
+        //캐시되는 원소는 바꾸지 않고 Redis 잔액으로 새로 만듦
+        assertEquals(1500L, accountInfos.get(0).getBalance());
+        assertEquals(2000L, accountInfos.get(1).getBalance());
+        assertEquals(1000L, loaded.getBalance());
+    }
+
+    //캐시에 없는 경우 -> loader(projection 쿼리)를 그대로 호출
+    private void givenAccountInfoCacheMiss() {
+        given(accountInfoCache.get(anyLong(), any()))
+                .willAnswer(invocation -> invocation.<Function<Long, List<AccountInfo>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+    }
 /*
     @Test
     @DisplayName("계좌 조회 성공")
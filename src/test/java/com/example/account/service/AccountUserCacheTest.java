@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountUserCacheTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic topic;
+
+    private AccountUserCache accountUserCache;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic(AccountUserCache.TOPIC, LongCodec.INSTANCE)).willReturn(topic);
+        accountUserCache = new AccountUserCache(accountUserRepository, redissonClient, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void idOnlyNeverLoadsUserEntity() {
+        //given
+        accountUserCache.init();
+        AccountUser proxy = AccountUser.builder().id(12L).build();
+        given(accountUserRepository.existsById(12L)).willReturn(true);
+        given(accountUserRepository.getById(12L)).willReturn(proxy);
+
+        //when
+        accountUserCache.findById(12L);
+        Optional<AccountUser> accountUser = accountUserCache.findById(12L);
+
+        //then
+        assertSame(proxy, accountUser.get());
+        verify(accountUserRepository, times(1)).existsById(12L);
+        verify(accountUserRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void fullModeReturnsCopyOfCachedUser() {
+        //given
+        ReflectionTestUtils.setField(accountUserCache, "idOnly", false);
+        accountUserCache.init();
+        AccountUser pobi = AccountUser.builder().id(12L).name("Pobi").build();
+        given(accountUserRepository.findById(12L)).willReturn(Optional.of(pobi));
+
+        //when
+        AccountUser first = accountUserCache.findById(12L).get();
+        AccountUser second = accountUserCache.findById(12L).get();
+
+        //then
+        assertEquals("Pobi", second.getName());
+        assertNotSame(first, second);
+        assertTrue(accountUserCache.existsById(12L));
+        verify(accountUserRepository, times(1)).findById(12L);
+    }
+
+    @Test
+    void missingUserIsNotCached() {
+        //given
+        accountUserCache.init();
+        given(accountUserRepository.existsById(12L)).willReturn(false, true);
+
+        //when
+        boolean before = accountUserCache.existsById(12L);
+        boolean after = accountUserCache.existsById(12L);
+
+        //then
+        //없는 사용자를 기억하지 않으므로 새로 만든 사용자는 바로 보임
+        assertFalse(before);
+        assertTrue(after);
+    }
+
+    @Test
+    void evictReloadsAndNotifiesOtherNodes() {
+        //given
+        accountUserCache.init();
+        given(accountUserRepository.existsById(12L)).willReturn(true);
+        accountUserCache.existsById(12L);
+
+        //when
+        accountUserCache.evictAfterCommit(12L);
+        accountUserCache.existsById(12L);
+
+        //then
+        verify(topic).publishAsync(12L);
+        verify(accountUserRepository, times(2)).existsById(12L);
+    }
+
+    @Test
+    void disabledGoesToRepository() {
+        //given
+        ReflectionTestUtils.setField(accountUserCache, "enabled", false);
+        accountUserCache.init();
+        given(accountUserRepository.existsById(12L)).willReturn(true);
+
+        //when
+        accountUserCache.existsById(12L);
+        accountUserCache.existsById(12L);
+
+        //then
+        verify(accountUserRepository, times(2)).existsById(12L);
+    }
+}
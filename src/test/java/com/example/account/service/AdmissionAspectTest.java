@@ -0,0 +1,130 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionAspectTest {
+    @Mock
+    private AccountSnapshotCache accountSnapshotCache;
+
+    @Mock
+    private AccountUserCache accountUserCache;
+
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionAspect admissionAspect;
+
+    @BeforeEach
+    void setUp() {
+        admissionAspect = new AdmissionAspect(accountSnapshotCache, accountUserCache,
+                hotAccountRegistry, failedTransactionRecorder, meterRegistry);
+    }
+
+    @Test
+    void rejectExceedAmountBeforeLock() throws Throwable {
+        //given
+        given(accountSnapshotCache.get("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(12L, AccountStatus.IN_USE, 100L)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                admissionAspect.aroundMethod(proceedingJoinPoint,
+                        new UseBalance.Request(12L, "1000000012", 1000L)));
+
+        //then
+        //LockAopAspect 까지 가지 않음
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertTrue(exception.isProvisional());
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000012", 1000L);
+        assertEquals(1.0, meterRegistry.counter("account.admission.rejected",
+                "reason", "AMOUNT_EXCEED_BALANCE").count());
+    }
+
+    @Test
+    void rejectOtherOwner() {
+        //given
+        given(accountSnapshotCache.get("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(12L, AccountStatus.IN_USE, 10000L)));
+        given(accountUserCache.existsById(13L))
+                .willReturn(true);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                admissionAspect.aroundMethod(proceedingJoinPoint,
+                        new UseBalance.Request(13L, "1000000012", 1000L)));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+    }
+
+    @Test
+    void rejectUnregistered() {
+        //given
+        given(accountSnapshotCache.get("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(12L, AccountStatus.UNREGISTERED, 10000L)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                admissionAspect.aroundMethod(proceedingJoinPoint,
+                        new UseBalance.Request(12L, "1000000012", 1000L)));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+    }
+
+    @Test
+    void plausibleRequestGoesToLock() throws Throwable {
+        //given
+        given(accountSnapshotCache.get("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(12L, AccountStatus.IN_USE, 10000L)));
+
+        //when
+        admissionAspect.aroundMethod(proceedingJoinPoint, new UseBalance.Request(12L, "1000000012", 1000L));
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(failedTransactionRecorder, never()).record(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void unknownAccountGoesToLock() throws Throwable {
+        //given
+        //없는 계좌는 락 경로에서 ACCOUNT_NOT_FOUND
+        given(accountSnapshotCache.get("1000000012"))
+                .willReturn(Optional.empty());
+
+        //when
+        admissionAspect.aroundMethod(proceedingJoinPoint, new UseBalance.Request(12L, "1000000012", 1000L));
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.account.service;
+
+import com.example.account.dto.BulkBalance;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.validation.Validator;
+import java.util.*;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkBalanceServiceTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private RedisBalanceService redisBalanceService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @Mock
+    private Validator validator;
+
+    @InjectMocks
+    private BulkBalanceService bulkBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        bulkBalanceService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bulkBalanceService.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lockEachAccountOnce() {
+        //given
+        List<BulkBalance.Item> items = Arrays.asList(
+                use("1000000001", 100L),
+                use("1000000002", 200L),
+                cancel("1000000001", 100L));
+        given(transactionService.applyBulk(anyList()))
+                .willAnswer(invocation -> {
+                    List<BulkBalance.Item> group = invocation.getArgument(0);
+                    List<BulkBalance.Result> results = new ArrayList<>();
+                    for (BulkBalance.Item item : group) {
+                        results.add(BulkBalance.Result.success(item.getType(), TransactionDto.builder()
+                                .accountNumber(item.getAccountNumber())
+                                .transactionResultType(S)
+                                .amount(item.getAmount())
+                                .build()));
+                    }
+                    return results;
+                });
+        List<BulkBalance.Result> results = new ArrayList<>();
+
+        //when
+        bulkBalanceService.process(items, results::add);
+
+        //then
+        //같은 계좌 사용/취소는 락 한번, 트랜잭션 한번
+        verify(lockService, times(1)).lock("1000000001");
+        verify(lockService, times(1)).unlock("1000000001");
+        verify(lockService, times(1)).lock("1000000002");
+        verify(transactionService, times(2)).applyBulk(anyList());
+        assertEquals(3, results.size());
+        results.sort(Comparator.comparingInt(BulkBalance.Result::getIndex));
+        assertEquals(USE, results.get(0).getType());
+        assertEquals(200L, results.get(1).getUse().getAmount());
+        assertEquals(CANCEL, results.get(2).getType());
+        assertEquals("1000000001", results.get(2).getCancel().getAccountNumber());
+    }
+
+    @Test
+    void failedItemIsRecorded() {
+        //given
+        given(transactionService.applyBulk(anyList()))
+                .willReturn(Collections.singletonList(
+                        BulkBalance.Result.failure(USE, ErrorCode.AMOUNT_EXCEED_BALANCE)));
+        List<BulkBalance.Result> results = new ArrayList<>();
+
+        //when
+        bulkBalanceService.process(Collections.singletonList(use("1000000001", 100L)), results::add);
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(0).getErrorCode());
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000001", 100L);
+    }
+
+    @Test
+    void lockFailedFailsWholeGroup() {
+        //given
+        doThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .when(lockService).lock("1000000001");
+        List<BulkBalance.Result> results = new ArrayList<>();
+
+        //when
+        bulkBalanceService.process(Arrays.asList(
+                use("1000000001", 100L),
+                use("1000000001", 200L)), results::add);
+
+        //then
+        assertEquals(2, results.size());
+        results.forEach(result -> assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, result.getErrorCode()));
+        verify(transactionService, never()).applyBulk(anyList());
+    }
+
+    @Test
+    void hotAccountRunsEachItemInOwnTransaction() {
+        //given
+        given(hotAccountRegistry.isHot("1000000001")).willReturn(true);
+        given(transactionService.useBalance(1L, "1000000001", 100L))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000001")
+                        .transactionResultType(S)
+                        .amount(100L)
+                        .build());
+        //칸을 일부 꺼낸 뒤 잔액 부족 -> 이 건의 트랜잭션만 롤백되어야 함
+        given(transactionService.useBalance(1L, "1000000001", 5000L))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        List<BulkBalance.Result> results = new ArrayList<>();
+
+        //when
+        bulkBalanceService.process(Arrays.asList(
+                use("1000000001", 100L),
+                use("1000000001", 5000L)), results::add);
+
+        //then
+        //실패를 잡고 커밋하는 applyBulk 는 타지 않음
+        verify(transactionService, never()).applyBulk(anyList());
+        verify(lockService, never()).lock(anyString());
+        results.sort(Comparator.comparingInt(BulkBalance.Result::getIndex));
+        assertNull(results.get(0).getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000001", 5000L);
+    }
+
+    @Test
+    void incompleteItemIsInvalid() {
+        //given
+        List<BulkBalance.Result> results = new ArrayList<>();
+
+        //when
+        //type 은 USE 인데 use 요청이 없음
+        bulkBalanceService.process(Collections.singletonList(
+                new BulkBalance.Item(USE, null, null)), results::add);
+
+        //then
+        assertEquals(ErrorCode.INVALID_REQUEST, results.get(0).getErrorCode());
+        verify(lockService, never()).lock(anyString());
+    }
+
+    private BulkBalance.Item use(String accountNumber, Long amount) {
+        return new BulkBalance.Item(USE, new UseBalance.Request(1L, accountNumber, amount), null);
+    }
+
+    private BulkBalance.Item cancel(String accountNumber, Long amount) {
+        return new BulkBalance.Item(CANCEL, null, new CancelBalance.Request("transactionId", accountNumber, amount));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.FailedRecordOverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class FailedTransactionRecorderTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final LedgerBatchWriter ledgerBatchWriter = mock(LedgerBatchWriter.class);
+    private final TransactionIdFilter transactionIdFilter = mock(TransactionIdFilter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FailedTransactionRecorder failedTransactionRecorder =
+            new FailedTransactionRecorder(accountRepository, ledgerBatchWriter,
+                    new TransactionIdIssuer(new UuidTransactionIdGenerator(), transactionIdFilter), meterRegistry);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushRemainingOnStop() throws InterruptedException {
+        //given
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(
+                        Account.builder().id(1L).accountNumber("1000000012").balance(100L).build(),
+                        Account.builder().id(2L).accountNumber("1000000013").balance(200L).build()));
+        ReflectionTestUtils.setField(failedTransactionRecorder, "flushIntervalMs", 1000L);
+        failedTransactionRecorder.start();
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        failedTransactionRecorder.record(USE, "1000000012", 1000L);
+        failedTransactionRecorder.record(CANCEL, "1000000013", 2000L);
+        failedTransactionRecorder.record(USE, "9999999999", 3000L);
+        failedTransactionRecorder.stop();
+
+        //then
+        //없는 계좌는 기록하지 않음
+        verify(ledgerBatchWriter, atLeastOnce()).write(captor.capture());
+        List<LedgerEntry> entries = captor.getAllValues().stream()
+                .flatMap(List::stream)
+                .collect(java.util.stream.Collectors.toList());
+        assertEquals(2, entries.size());
+        assertEquals(F, entries.get(0).getTransaction().getTransactionResultType());
+        assertEquals(100L, entries.get(0).getTransaction().getBalanceSnapshot());
+        assertEquals(null, entries.get(0).getNewBalance());
+        assertEquals(2.0, meterRegistry.counter("account.failed-transaction.recorded").count());
+    }
+
+    @Test
+    void dropNewestWhenQueueFull() {
+        //given
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(1);
+        ReflectionTestUtils.setField(failedTransactionRecorder, "queue", queue);
+        ReflectionTestUtils.setField(failedTransactionRecorder, "overflowPolicy", FailedRecordOverflowPolicy.DROP_NEWEST);
+
+        //when
+        failedTransactionRecorder.record(USE, "1000000012", 1000L);
+        failedTransactionRecorder.record(USE, "1000000012", 2000L);
+
+        //then
+        assertEquals(1, queue.size());
+        assertEquals(1.0, meterRegistry.counter("account.failed-transaction.dropped").count());
+        verify(ledgerBatchWriter, never()).write(anyList());
+    }
+
+    @Test
+    void callerRunsWhenQueueFull() {
+        //given
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(
+                        Account.builder().id(1L).accountNumber("1000000012").balance(100L).build()));
+        ReflectionTestUtils.setField(failedTransactionRecorder, "queue", new ArrayBlockingQueue<>(1));
+
+        //when
+        failedTransactionRecorder.record(USE, "1000000012", 1000L);
+        failedTransactionRecorder.record(USE, "1000000012", 2000L);
+
+        //then
+        //두번째 기록은 요청 쓰레드에서 바로 저장
+        verify(ledgerBatchWriter, times(1)).write(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordFailedUseWithCurrentBalance() {
+        //given
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(
+                        Account.builder().id(1L).accountNumber("1000000012").balance(10000L).build()));
+        ReflectionTestUtils.setField(failedTransactionRecorder, "queue", new ArrayBlockingQueue<>(1));
+        failedTransactionRecorder.record(USE, "1000000012", 100L);
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        failedTransactionRecorder.record(USE, "1000000012", 200L);
+
+        //then
+        //잔액은 바꾸지 않고 실패 당시 잔액을 스냅샷으로
+        verify(ledgerBatchWriter, times(1)).write(captor.capture());
+        Transaction transaction = captor.getValue().get(0).getTransaction();
+        assertEquals(200L, transaction.getAmount());
+        assertEquals(10000L, transaction.getBalanceSnapshot());
+        assertEquals(F, transaction.getTransactionResultType());
+        assertEquals(USE, transaction.getTransactionType());
+        //재시작 후 다시 만든 필터와 같이 실패 거래 id 도 필터에 있음
+        verify(transactionIdFilter).add(transaction.getTransactionId());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+    @Mock
+    private HoldStore holdStore;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerBatchWriter ledgerBatchWriter;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private TransactionIdIssuer transactionIdIssuer;
+
+    @Mock
+    private AccountInfoCache accountInfoCache;
+
+    @InjectMocks
+    private HoldService holdService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(holdService, "enabled", true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void captureBatchWritesAllHoldsOnce() throws Exception {
+        //given
+        given(holdStore.claim("1000000012", "hold1")).willReturn(Optional.of(300L));
+        given(holdStore.claim("1000000012", "hold2")).willReturn(Optional.of(200L));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(7L)
+                        .accountNumber("1000000012")
+                        .balance(1000L)
+                        .build()));
+        given(transactionIdIssuer.issue()).willReturn("tx1", "tx2");
+        HoldService.PendingCapture first = new HoldService.PendingCapture("hold1");
+        HoldService.PendingCapture second = new HoldService.PendingCapture("hold2");
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        holdService.captureBatch("1000000012", Arrays.asList(first, second));
+
+        //then
+        //계좌 락 한번, 저장 한번
+        verify(lockService, times(1)).lock("1000000012");
+        verify(ledgerBatchWriter, times(1)).write(captor.capture());
+        verify(lockService, times(1)).unlock("1000000012");
+        assertEquals(2, captor.getValue().size());
+        assertEquals(700L, captor.getValue().get(0).getNewBalance());
+        assertEquals(500L, captor.getValue().get(1).getNewBalance());
+        verify(holdStore).complete("1000000012", "hold1");
+        verify(holdStore).complete("1000000012", "hold2");
+
+        TransactionDto transactionDto = second.getResult().get();
+        assertEquals("tx2", transactionDto.getTransactionId());
+        assertEquals(200L, transactionDto.getAmount());
+        assertEquals(500L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    void captureExpiredHold() {
+        //given
+        given(holdStore.claim("1000000012", "expired")).willReturn(Optional.empty());
+        HoldService.PendingCapture capture = new HoldService.PendingCapture("expired");
+
+        //when
+        holdService.captureBatch("1000000012", Arrays.asList(capture));
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> capture.getResult().get());
+        assertEquals(ErrorCode.HOLD_NOT_FOUND, ((AccountException) exception.getCause()).getErrorCode());
+        verify(ledgerBatchWriter, never()).write(anyList());
+        verify(lockService, times(1)).unlock("1000000012");
+    }
+
+    @Test
+    void captureFailedRestoresHold() {
+        //given
+        given(holdStore.claim("1000000012", "hold1")).willReturn(Optional.of(300L));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(7L)
+                        .accountNumber("1000000012")
+                        .balance(1000L)
+                        .build()));
+        doThrow(new IllegalStateException("db down")).when(ledgerBatchWriter).write(anyList());
+        HoldService.PendingCapture capture = new HoldService.PendingCapture("hold1");
+
+        //when
+        holdService.captureBatch("1000000012", Arrays.asList(capture));
+
+        //then
+        //저장하지 못한 홀드는 다시 홀드 상태로
+        assertTrue(capture.getResult().isCompletedExceptionally());
+        verify(holdStore).unclaim(eq("1000000012"), eq("hold1"), anyLong());
+        verify(holdStore, never()).complete(anyString(), anyString());
+    }
+
+    @Test
+    void sweepReleasesExpiredHoldsOfOtherNodes() {
+        //given
+        //다른 노드가 만들고 죽어서 타이머가 없는 홀드
+        given(holdStore.getExpired(anyLong(), eq(1000)))
+                .willReturn(Arrays.asList(
+                        new String[]{"1000000012", "hold1"},
+                        new String[]{"1000000013", "hold2"}));
+        given(holdStore.release("1000000012", "hold1")).willThrow(new IllegalStateException());
+
+        //when
+        holdService.sweepExpired();
+
+        //then
+        //하나가 실패해도 나머지는 풀림
+        verify(holdStore).release("1000000012", "hold1");
+        verify(holdStore).release("1000000013", "hold2");
+    }
+
+    @Test
+    void heldAmountIsZeroWhenDisabled() {
+        //given
+        ReflectionTestUtils.setField(holdService, "enabled", false);
+
+        //when
+        long heldAmount = holdService.getHeldAmount("1000000012");
+
+        //then
+        assertEquals(0L, heldAmount);
+        verify(holdStore, never()).getHeldAmount(anyString());
+    }
+}
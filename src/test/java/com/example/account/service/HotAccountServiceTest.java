@@ -0,0 +1,191 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.SubBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.SubBalanceRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class HotAccountServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private SubBalanceRepository subBalanceRepository;
+
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private HoldService holdService;
+
+    @InjectMocks
+    private HotAccountService hotAccountService;
+
+    private final Account account = Account.builder()
+            .id(1L)
+            .accountNumber("1000000012")
+            .balance(0L)
+            .hot(true)
+            .subBalanceSlots(2)
+            .build();
+
+    private final List<SubBalance> subBalances = Arrays.asList(
+            SubBalance.builder().account(account).slot(0).balance(100L).build(),
+            SubBalance.builder().account(account).slot(1).balance(100L).build());
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void useBalanceFromOneSlot() {
+        //given
+        givenSlots();
+        given(subBalanceRepository.sumBalance(1L)).willReturn(170L);
+
+        //when
+        Long balance = hotAccountService.useBalance(account, 30L);
+
+        //then
+        assertEquals(170L, balance);
+        assertEquals(170L, subBalances.get(0).getBalance() + subBalances.get(1).getBalance());
+        //칸 하나만 잠금
+        verify(lockService, times(1)).tryLockSlot(eq("1000000012"), anyInt(), anyLong());
+    }
+
+    @Test
+    void useBalanceBorrowsFromSibling() {
+        //given
+        givenSlots();
+        given(subBalanceRepository.sumBalance(1L)).willReturn(50L);
+
+        //when
+        hotAccountService.useBalance(account, 150L);
+
+        //then
+        assertEquals(50L, subBalances.get(0).getBalance() + subBalances.get(1).getBalance());
+        verify(lockService, times(2)).tryLockSlot(eq("1000000012"), anyInt(), anyLong());
+    }
+
+    @Test
+    void useBalance_ExceedAmount() {
+        //given
+        givenSlots();
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> hotAccountService.useBalance(account, 300L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    void releaseSlotLocksAfterCompletion() {
+        //given
+        givenSlots();
+        given(subBalanceRepository.sumBalance(1L)).willReturn(50L);
+        hotAccountService.useBalance(account, 150L);
+
+        //when
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        //then
+        verify(lockService, times(1)).unlockSlot("1000000012", 0);
+        verify(lockService, times(1)).unlockSlot("1000000012", 1);
+    }
+
+    @Test
+    void makeHot_HoldsOutstanding() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(2L)
+                        .accountNumber("1000000013")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(1000L)
+                        .build()));
+        given(lockService.isHeldByCurrentThread("1000000013")).willReturn(true);
+        given(holdService.getHeldAmount("1000000013")).willReturn(300L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> hotAccountService.makeHot("1000000013", 4));
+
+        //then
+        //칸으로 옮기면 capture 가 0 인 계좌 잔액에서 빼려다 만료될때까지 실패함
+        assertEquals(ErrorCode.ACCOUNT_HAS_HOLDS, exception.getErrorCode());
+        verify(subBalanceRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void makeHot_WithoutAccountLock() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(2L)
+                        .accountNumber("1000000013")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(1000L)
+                        .build()));
+        given(lockService.isHeldByCurrentThread("1000000013")).willReturn(false);
+
+        //when
+        //then
+        //락 없이 잔액을 칸으로 옮기면 진행중인 사용의 차감을 덮어씀
+        assertThrows(IllegalStateException.class, () -> hotAccountService.makeHot("1000000013", 4));
+        verify(subBalanceRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void evenShare() {
+        assertEquals(4L, HotAccountService.evenShare(10L, 3, 0));
+        assertEquals(3L, HotAccountService.evenShare(10L, 3, 1));
+        assertEquals(3L, HotAccountService.evenShare(10L, 3, 2));
+    }
+
+    private void givenSlots() {
+        given(lockService.tryLockSlot(eq("1000000012"), anyInt(), anyLong())).willReturn(true);
+        given(subBalanceRepository.findByAccountIdAndSlot(eq(1L), anyInt()))
+                .willAnswer(invocation -> Optional.of(subBalances.get(invocation.getArgument(1, Integer.class))));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HybridLockBackendTest {
+
+    @Mock
+    private LocalLockBackend localLockBackend;
+
+    @Mock
+    private RedisLockBackend redisLockBackend;
+
+    @Test
+    void successLock_localThenRedis() throws InterruptedException {
+        //given
+        HybridLockBackend hybridLockBackend = new HybridLockBackend(localLockBackend, redisLockBackend);
+        given(localLockBackend.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(redisLockBackend.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        //when
+        boolean isLock = hybridLockBackend.tryLock("ACLK:1234", 1, 15, TimeUnit.SECONDS);
+        //then
+        assertTrue(isLock);
+        verify(localLockBackend, times(0)).unlock(anyString());
+    }
+
+    @Test
+    void failRedisLock_releaseLocalStripe() throws InterruptedException {
+        //given
+        HybridLockBackend hybridLockBackend = new HybridLockBackend(localLockBackend, redisLockBackend);
+        given(localLockBackend.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(redisLockBackend.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(false);
+        //when
+        boolean isLock = hybridLockBackend.tryLock("ACLK:1234", 1, 15, TimeUnit.SECONDS);
+        //then
+        assertFalse(isLock);
+        verify(localLockBackend, times(1)).unlock("ACLK:1234");
+    }
+
+    @Test
+    void failLocalLock_neverTouchRedis() throws InterruptedException {
+        //given
+        HybridLockBackend hybridLockBackend = new HybridLockBackend(localLockBackend, redisLockBackend);
+        given(localLockBackend.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(false);
+        //when
+        boolean isLock = hybridLockBackend.tryLock("ACLK:1234", 1, 15, TimeUnit.SECONDS);
+        //then
+        assertFalse(isLock);
+        verify(redisLockBackend, times(0)).tryLock(anyString(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void unlock_redisThenLocal() {
+        //given
+        HybridLockBackend hybridLockBackend = new HybridLockBackend(localLockBackend, redisLockBackend);
+        //when
+        hybridLockBackend.unlock("ACLK:1234");
+        //then
+        verify(redisLockBackend, times(1)).unlock("ACLK:1234");
+        verify(localLockBackend, times(1)).unlock("ACLK:1234");
+    }
+}
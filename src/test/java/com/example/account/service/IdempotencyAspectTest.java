@@ -0,0 +1,255 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+    private static final UseBalance.Request REQUEST = new UseBalance.Request(12L, "1000000012", 1000L);
+    //메소드:사용자:계좌:Idempotency-Key
+    private static final String KEY = "useBalance:12:1000000012:key-1";
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Mock
+    private MethodSignature methodSignature;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private IdempotencyAspect idempotencyAspect;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyAspect = new IdempotencyAspect(idempotencyStore, objectMapper);
+    }
+
+    @Test
+    void proceedWithoutKey() throws Throwable {
+        //given
+        given(proceedingJoinPoint.proceed()).willReturn("response");
+
+        //when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, null);
+
+        //then
+        assertEquals("response", result);
+        verify(idempotencyStore, never()).find(anyString());
+    }
+
+    @Test
+    void replayStoredResponse() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(KEY))
+                .willReturn(Optional.of(IdempotentResult.success(hash(REQUEST),
+                        "{\"accountNumber\":\"1000000012\",\"transactionResult\":\"S\",\"transactionId\":\"transactionId\",\"amount\":1000}")));
+
+        //when
+        UseBalance.Response response = (UseBalance.Response)
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1");
+
+        //then
+        //락, DB 를 타는 원래 메소드는 실행하지 않음
+        verify(proceedingJoinPoint, never()).proceed();
+        assertEquals("transactionId", response.getTransactionId());
+        assertEquals(S, response.getTransactionResult());
+        assertEquals(1000L, response.getAmount());
+    }
+
+    @Test
+    void replayStoredError() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(KEY))
+                .willReturn(Optional.of(IdempotentResult.failure(hash(REQUEST), ErrorCode.AMOUNT_EXCEED_BALANCE)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1"));
+
+        //then
+        verify(proceedingJoinPoint, never()).proceed();
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    void rejectReplayWithDifferentBody() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(KEY))
+                .willReturn(Optional.of(IdempotentResult.success(hash(REQUEST),
+                        "{\"accountNumber\":\"1000000012\",\"transactionResult\":\"S\",\"transactionId\":\"transactionId\",\"amount\":1000}")));
+
+        //when
+        //같은 키, 같은 계좌인데 금액이 다름
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint,
+                        new UseBalance.Request(12L, "1000000012", 9000L), "key-1"));
+
+        //then
+        verify(proceedingJoinPoint, never()).proceed();
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+    }
+
+    @Test
+    void sameKeyOfOtherUserIsSeparate() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(anyString())).willReturn(Optional.empty());
+        given(idempotencyStore.tryBegin(anyString())).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn(UseBalance.Response.builder()
+                .transactionId("transactionId")
+                .build());
+
+        //when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint,
+                new UseBalance.Request(13L, "1000000013", 1000L), "key-1");
+
+        //then
+        verify(idempotencyStore, times(1)).find("useBalance:13:1000000013:key-1");
+        verify(idempotencyStore, never()).find(KEY);
+    }
+
+    @Test
+    void storeFirstResponse() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(anyString())).willReturn(Optional.empty());
+        given(idempotencyStore.tryBegin(KEY)).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willReturn(UseBalance.Response.builder()
+                .transactionId("transactionId")
+                .amount(1000L)
+                .build());
+        ArgumentCaptor<IdempotentResult> captor = ArgumentCaptor.forClass(IdempotentResult.class);
+
+        //when
+        idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1");
+
+        //then
+        verify(idempotencyStore, times(1)).complete(eq(KEY), captor.capture());
+        assertEquals("transactionId",
+                objectMapper.readValue(captor.getValue().getBody(), UseBalance.Response.class).getTransactionId());
+        assertEquals(hash(REQUEST), captor.getValue().getRequestHash());
+    }
+
+    @Test
+    void storeFirstError() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(anyString())).willReturn(Optional.empty());
+        given(idempotencyStore.tryBegin(anyString())).willReturn(true);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        ArgumentCaptor<IdempotentResult> captor = ArgumentCaptor.forClass(IdempotentResult.class);
+
+        //when
+        assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1"));
+
+        //then
+        verify(idempotencyStore, times(1)).complete(anyString(), captor.capture());
+        verify(idempotencyStore, never()).abandon(anyString());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, captor.getValue().getErrorCode());
+    }
+
+    @Test
+    void retryRunsAfterLockTimeout() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(anyString())).willReturn(Optional.empty());
+        given(idempotencyStore.tryBegin(KEY)).willReturn(true);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .willReturn(UseBalance.Response.builder()
+                        .transactionId("transactionId")
+                        .build());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1"));
+        UseBalance.Response response = (UseBalance.Response)
+                idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1");
+
+        //then
+        //락 대기 초과는 저장하지 않음 -> 같은 키의 재시도가 실제로 실행됨
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals("transactionId", response.getTransactionId());
+        verify(proceedingJoinPoint, times(2)).proceed();
+        verify(idempotencyStore, times(1)).abandon(KEY);
+        verify(idempotencyStore, times(1)).complete(eq(KEY), any());
+    }
+
+    @Test
+    void provisionalErrorIsNotStored() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(anyString())).willReturn(Optional.empty());
+        given(idempotencyStore.tryBegin(anyString())).willReturn(true);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE, true));
+
+        //when
+        assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1"));
+
+        //then
+        //스냅샷으로 거절된 경우 -> 재시도는 락을 잡고 DB 에서 다시 검증
+        verify(idempotencyStore, times(1)).abandon(KEY);
+        verify(idempotencyStore, never()).complete(anyString(), any());
+    }
+
+    @Test
+    void abandonOnUnexpectedError() throws Throwable {
+        //given
+        givenSignature();
+        given(idempotencyStore.find(anyString())).willReturn(Optional.empty());
+        given(idempotencyStore.tryBegin(anyString())).willReturn(true);
+        given(proceedingJoinPoint.proceed()).willThrow(new IllegalStateException());
+
+        //when
+        assertThrows(IllegalStateException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, REQUEST, "key-1"));
+
+        //then
+        //재시도가 다시 실행될 수 있도록
+        verify(idempotencyStore, times(1)).abandon(KEY);
+        verify(idempotencyStore, never()).complete(anyString(), any());
+    }
+
+    private String hash(Object request) throws Exception {
+        return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsBytes(request)));
+    }
+
+    private void givenSignature() {
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getName()).willReturn("useBalance");
+        doReturn(UseBalance.Response.class).when(methodSignature).getReturnType();
+    }
+}
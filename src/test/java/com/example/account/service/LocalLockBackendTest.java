@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalLockBackendTest {
+
+    private final LocalLockBackend localLockBackend = new LocalLockBackend(16);
+
+    @Test
+    void lockAndUnlock() throws InterruptedException {
+        //given
+        //when
+        boolean isLock = localLockBackend.tryLock("ACLK:1000000000", 1, 15, TimeUnit.SECONDS);
+        //then
+        assertTrue(isLock);
+        assertDoesNotThrow(() -> localLockBackend.unlock("ACLK:1000000000"));
+    }
+
+    @Test
+    void heldOnlyByLockingThread() throws Exception {
+        //given
+        localLockBackend.tryLock("ACLK:1000000000", 1, 15, TimeUnit.SECONDS);
+        //when
+        boolean heldByOther = CompletableFuture.supplyAsync(
+                () -> localLockBackend.isHeldByCurrentThread("ACLK:1000000000")).get();
+        //then
+        assertTrue(localLockBackend.isHeldByCurrentThread("ACLK:1000000000"));
+        assertFalse(heldByOther);
+        localLockBackend.unlock("ACLK:1000000000");
+        assertFalse(localLockBackend.isHeldByCurrentThread("ACLK:1000000000"));
+    }
+
+    @Test
+    void failLock_heldByOtherThread() throws Exception {
+        //given
+        localLockBackend.tryLock("ACLK:1000000000", 1, 15, TimeUnit.SECONDS);
+        //when
+        boolean isLock = CompletableFuture.supplyAsync(() -> {
+            try {
+                return localLockBackend.tryLock("ACLK:1000000000", 10, 15, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+        //then
+        assertFalse(isLock);
+        localLockBackend.unlock("ACLK:1000000000");
+    }
+
+    @Test
+    void sameKeySameStripe() {
+        //given
+        //when
+        //then
+        assertEquals(localLockBackend.stripeIndex("ACLK:1234567890"),
+                localLockBackend.stripeIndex("ACLK:1234567890"));
+        assertTrue(localLockBackend.stripeIndex("ACLK:1234567890") < 16);
+    }
+
+    @Test
+    void lockAll_releasesAcquiredStripesOnFailure() throws Exception {
+        //given
+        List<String> lockKeys = Arrays.asList("ACLK:1000000000", "ACLK:1000000001", "ACLK:1000000002");
+        localLockBackend.tryLock("ACLK:1000000002", 1, 15, TimeUnit.SECONDS);
+
+        //when
+        boolean isLock = CompletableFuture.supplyAsync(() -> {
+            try {
+                return localLockBackend.tryLockAll(lockKeys, 10, 15, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+        localLockBackend.unlock("ACLK:1000000002");
+
+        //then
+        //하나를 못잡았으면 나머지도 잡고있지 않아야 함
+        assertFalse(isLock);
+        assertTrue(localLockBackend.tryLockAll(lockKeys, 1, 15, TimeUnit.SECONDS));
+        localLockBackend.unlockAll(lockKeys);
+    }
+
+    @Test
+    void lockAll_oppositeOrderDoesNotDeadlock() throws Exception {
+        //given
+        List<String> forward = Arrays.asList("ACLK:1000000000", "ACLK:2000000000");
+        List<String> backward = Arrays.asList("ACLK:2000000000", "ACLK:1000000000");
+
+        //when
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> lockRepeatedly(forward));
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> lockRepeatedly(backward));
+
+        //then
+        assertEquals(1000, first.get(10, TimeUnit.SECONDS));
+        assertEquals(1000, second.get(10, TimeUnit.SECONDS));
+    }
+
+    private int lockRepeatedly(List<String> lockKeys) {
+        int locked = 0;
+        try {
+            for (int i = 0; i < 1000; i++) {
+                if (localLockBackend.tryLockAll(lockKeys, 1, 15, TimeUnit.SECONDS)) {
+                    locked++;
+                    localLockBackend.unlockAll(lockKeys);
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return locked;
+    }
+}
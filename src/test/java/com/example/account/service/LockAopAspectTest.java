@@ -1,5 +1,6 @@
 package com.example.account.service;
 
+import com.example.account.dto.Transfer;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
@@ -13,7 +14,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -23,6 +26,15 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private AccountSerialExecutor accountSerialExecutor;
+
+    @Mock
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Mock
+    private HotAccountRegistry hotAccountRegistry;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
@@ -75,4 +87,38 @@ class LockAopAspectTest {
         assertEquals("54321",lockArgumentCaptor.getValue());
         assertEquals("54321",unLockArgumentCaptor.getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void lockAndUnlock_onSerialLane() throws Throwable {
+        //given
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1234",1000L);
+        given(accountSerialExecutor.isEnabled())
+                .willReturn(true);
+        given(accountSerialExecutor.execute(anyString(), any()))
+                .willAnswer(invocation -> invocation.<AccountSerialExecutor.SerialTask>getArgument(1).run());
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        //then
+        verify(accountSerialExecutor, times(1)).execute(eq("1234"), any());
+        verify(lockService,times(1)).lock("1234");
+        verify(lockService,times(1)).unlock("1234");
+    }
+
+    @Test
+    void lockAllAccountsOfTransfer() throws Throwable {
+        //given
+        Transfer.Request request =
+                new Transfer.Request(123L, "2000000000", "1000000000", 1000L);
+
+        //when
+        lockAopAspect.aroundMultiAccountMethod(proceedingJoinPoint, request);
+
+        //then
+        verify(lockService, times(1)).lockAll(request.getLockAccountNumbers());
+        verify(lockService, times(1)).unlockAll(request.getLockAccountNumbers());
+        verify(lockService, never()).lock(anyString());
+    }
+}
@@ -4,6 +4,7 @@ import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,6 +14,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,9 +32,16 @@ class LockServiceTest {
     @Mock
     private RLock rLock;
 
-    @InjectMocks
+    @Mock
+    private RLock multiLock;
+
     private LockService lockService;
 
+    @BeforeEach
+    void setUp() {
+        lockService = new LockService(new RedisLockBackend(redissonClient));
+    }
+
     @Test
     void successGetLock() throws InterruptedException {
         //given
@@ -56,4 +67,58 @@ class LockServiceTest {
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    void interruptedWhileWaitingLock() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new InterruptedException());
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> lockService.lock("123"));
+        //then
+        //락 없이 진행하지 않고, 인터럽트 표시는 남김
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    void redisErrorWhileLocking() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new IllegalStateException("redis down"));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> lockService.lock("123"));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void lockAll_sortedAccountOrder() {
+        //given
+        //when
+        List<String> lockKeys = lockService.getLockKeys(Arrays.asList("3000000000", "1000000000", "3000000000"));
+        //then
+        //어떤 순서로 요청해도 같은 순서로 잡음
+        assertEquals(Arrays.asList("ACLK:1000000000", "ACLK:3000000000"), lockKeys);
+    }
+
+    @Test
+    void failGetLockAll() throws InterruptedException {
+        //given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(redissonClient.getMultiLock(any(), any()))
+                .willReturn(multiLock);
+        given(multiLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lockAll(Arrays.asList("1000000000", "2000000000")));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+}
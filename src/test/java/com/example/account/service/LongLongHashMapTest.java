@@ -0,0 +1,99 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    void putAndGet() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(4);
+
+        //when
+        map.put(1000000012L, 7L);
+
+        //then
+        assertEquals(7L, map.get(1000000012L));
+        assertEquals(LongLongHashMap.NO_VALUE, map.get(1000000013L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void growKeepsAllEntries() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(16);
+        long initialBytes = map.memoryBytes();
+
+        //when
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(1000000000L + key, key);
+        }
+
+        //then
+        assertEquals(10_000, map.size());
+        assertTrue(map.memoryBytes() > initialBytes);
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(key, map.get(1000000000L + key));
+        }
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingValue() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(16);
+        map.put(1000000012L, 7L);
+
+        //when
+        boolean added = map.putIfAbsent(1000000012L, 8L);
+
+        //then
+        assertFalse(added);
+        assertEquals(7L, map.get(1000000012L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void putReplacesExistingValue() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(16);
+        map.put(1000000012L, 7L);
+
+        //when
+        map.put(1000000012L, 8L);
+
+        //then
+        assertEquals(8L, map.get(1000000012L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void presizedMapDoesNotGrow() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(16);
+        map.ensureCapacity(100_000);
+        long presizedBytes = map.memoryBytes();
+
+        //when
+        for (long key = 1; key <= 100_000; key++) {
+            map.putIfAbsent(1000000000L + key, key);
+        }
+
+        //then
+        assertEquals(presizedBytes, map.memoryBytes());
+        //load factor 0.75 -> 칸당 16바이트 / 0.75 = 약 21바이트
+        assertTrue(presizedBytes / 100_000.0 < 24);
+    }
+
+    @Test
+    void reservedKeyOrValueIsRejected() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(16);
+
+        //when
+        //then
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1L));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, LongLongHashMap.NO_VALUE));
+    }
+}
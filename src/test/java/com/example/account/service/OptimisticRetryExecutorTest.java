@@ -0,0 +1,67 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticRetryExecutor optimisticRetryExecutor = new OptimisticRetryExecutor(meterRegistry);
+
+    @Test
+    void successAfterConflict() throws Throwable {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        //when
+        Object result = optimisticRetryExecutor.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "ok";
+        });
+        //then
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(2.0, meterRegistry.counter("account.optimistic.attempts").count());
+        assertEquals(1.0, meterRegistry.counter("account.optimistic.conflicts").count());
+        assertEquals(1.0, meterRegistry.counter("account.optimistic.retries").count());
+    }
+
+    @Test
+    void failAfterMaxAttempts() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                optimisticRetryExecutor.execute(() -> {
+                    calls.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(3, calls.get());
+        assertEquals(1.0, meterRegistry.counter("account.optimistic.exhausted").count());
+    }
+
+    @Test
+    void doNotRetryBusinessException() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                optimisticRetryExecutor.execute(() -> {
+                    calls.incrementAndGet();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, calls.get());
+    }
+}
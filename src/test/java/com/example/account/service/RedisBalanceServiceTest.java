@@ -0,0 +1,199 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBalanceServiceTest {
+    @Mock
+    private RedisBalanceStore redisBalanceStore;
+
+    @Mock
+    private RedisBalanceWriteBehind redisBalanceWriteBehind;
+
+    @Mock
+    private AccountUserCache accountUserCache;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionIdIssuer transactionIdIssuer;
+
+    @Mock
+    private TransactionQueryCache transactionQueryCache;
+
+    @Mock
+    private TransactionIdFilter transactionIdFilter;
+
+    @Mock
+    private AccountInfoCache accountInfoCache;
+
+    @InjectMocks
+    private RedisBalanceService redisBalanceService;
+
+    @Test
+    void successUseBalance() {
+        //given
+        given(redisBalanceStore.use("1000000012", 12L, 1000L))
+                .willReturn(new RedisBalanceStore.UseResult(0L, 9000L, 7L));
+        ArgumentCaptor<LedgerEntry> captor = ArgumentCaptor.forClass(LedgerEntry.class);
+
+        //when
+        TransactionDto transactionDto = redisBalanceService.useBalance(12L, "1000000012", 1000L);
+
+        //then
+        verify(redisBalanceWriteBehind, times(1)).submit(captor.capture());
+        assertEquals(7L, captor.getValue().getAccountId());
+        assertEquals("1000000012", captor.getValue().getAccountNumber());
+        //잔액은 flush 시점의 Redis 잔액으로 채움
+        assertNull(captor.getValue().getNewBalance());
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals(S, transactionDto.getTransactionResultType());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+        verify(accountUserCache, never()).existsById(anyLong());
+    }
+
+    @Test
+    void useBalance_UserNotFound() {
+        //given
+        given(redisBalanceStore.use(anyString(), anyLong(), anyLong()))
+                .willReturn(new RedisBalanceStore.UseResult(RedisBalanceStore.USER_UN_MATCH, 0L, 0L));
+        given(accountUserCache.existsById(anyLong()))
+                .willReturn(false);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+        verify(redisBalanceWriteBehind, never()).submit(any());
+    }
+
+    @Test
+    void useBalance_ExceedAmount() {
+        //given
+        given(redisBalanceStore.use(anyString(), anyLong(), anyLong()))
+                .willReturn(new RedisBalanceStore.UseResult(RedisBalanceStore.NOT_ENOUGH, 0L, 0L));
+        given(accountUserCache.existsById(anyLong()))
+                .willReturn(true);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(redisBalanceWriteBehind, never()).submit(any());
+    }
+
+    @Test
+    void successCancelBalance_NotYetFlushed() {
+        //given
+        Transaction original = Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .build();
+        given(redisBalanceWriteBehind.findPending("transactionId"))
+                .willReturn(Optional.of(LedgerEntry.builder()
+                        .transaction(original)
+                        .accountId(7L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(redisBalanceStore.getAccountId("1000000012"))
+                .willReturn(Optional.of(7L));
+        given(redisBalanceStore.cancel("1000000012", "transactionId", 1000L))
+                .willReturn(10000L);
+
+        //when
+        TransactionDto transactionDto = redisBalanceService.cancelBalance("transactionId", "1000000012", 1000L);
+
+        //then
+        verify(transactionRepository, never()).findWithAccountByTransactionId(anyString());
+        verify(redisBalanceWriteBehind, times(1)).submit(any());
+        assertEquals(CANCEL, transactionDto.getTransactionType());
+        assertEquals(10000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    void cancelBalance_TransactionAccountUnMatch() {
+        //given
+        given(redisBalanceWriteBehind.findPending("transactionId"))
+                .willReturn(Optional.of(LedgerEntry.builder()
+                        .transaction(Transaction.builder()
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build())
+                        .accountId(7L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(redisBalanceStore.getAccountId("1000000013"))
+                .willReturn(Optional.of(8L));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.cancelBalance("transactionId", "1000000013", 1000L));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(redisBalanceStore, never()).cancel(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void cancelBalance_AlreadyCanceled() {
+        //given
+        given(redisBalanceWriteBehind.findPending("transactionId"))
+                .willReturn(Optional.of(LedgerEntry.builder()
+                        .transaction(Transaction.builder()
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build())
+                        .accountId(7L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(redisBalanceStore.getAccountId("1000000012"))
+                .willReturn(Optional.of(7L));
+        //동시에 들어온 다른 취소가 먼저 입금함
+        given(redisBalanceStore.cancel("1000000012", "transactionId", 1000L))
+                .willReturn(RedisBalanceStore.ALREADY_CANCELED);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.cancelBalance("transactionId", "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELED, exception.getErrorCode());
+        verify(redisBalanceWriteBehind, never()).submit(any());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.Codec;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class RedisNodeIdLeaseTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong nodeSeq;
+
+    @Mock
+    private RBucket<Object> rBucket;
+
+    @Mock
+    private RScript rScript;
+
+    @Test
+    void lostLeaseFailsUntilNewNodeIdIsAcquired() {
+        //given
+        given(redissonClient.getAtomicLong("TXID:node-seq")).willReturn(nodeSeq);
+        //처음 빌릴때 0, 다시 빌릴때 한번은 Redis 오류, 그 다음 5
+        given(nodeSeq.getAndIncrement())
+                .willReturn(0L)
+                .willThrow(new RedisException("connection refused"))
+                .willReturn(5L);
+        doReturn(rBucket).when(redissonClient).getBucket(anyString(), any(Codec.class));
+        given(rBucket.trySet(anyString(), eq(30000L), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        given(redissonClient.getScript(any(Codec.class))).willReturn(rScript);
+        //연장 -> 다른 노드가 가져감
+        given(rScript.<Long>eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                anyList(), anyString(), eq("30000")))
+                .willReturn(0L);
+        //반납
+        given(rScript.<Long>eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                anyList(), anyString()))
+                .willReturn(1L);
+        RedisNodeIdLease lease = new RedisNodeIdLease(redissonClient, 1023L, 30000L);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(lease);
+
+        try {
+            //when
+            long leased = lease.getNodeId();
+            lease.renew();
+
+            //then
+            //잃은 id 로 계속 발급하지 않음
+            assertEquals(0L, leased);
+            assertThrows(IllegalStateException.class, lease::getNodeId);
+            assertThrows(IllegalStateException.class, generator::generate);
+
+            //다음 주기에 새 id 를 빌린 뒤부터 다시 발급
+            lease.renew();
+            assertEquals(5L, lease.getNodeId());
+            assertEquals(5L, (generator.nextId() >>> SnowflakeTransactionIdGenerator.SEQUENCE_BITS)
+                    & SnowflakeTransactionIdGenerator.MAX_NODE_ID);
+        } finally {
+            lease.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int REQUESTS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+    }
+
+    @Test
+    void concurrentRequestsShareOneLoad() throws Exception {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+
+        //when
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("account", () -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return "loaded";
+            })));
+        }
+        //나머지 요청이 모두 로딩에 붙을 때까지 기다린 뒤 로딩을 끝냄
+        waitForCoalesced(REQUESTS - 1);
+        release.countDown();
+
+        //then
+        for (Future<String> result : results) {
+            assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(REQUESTS - 1, coalesced());
+        executor.shutdown();
+    }
+
+    @Test
+    void waitersReceiveLeadersException() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("tx", () -> {
+            awaitQuietly(release);
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }));
+        waitForInFlight();
+
+        //when
+        Future<String> waiter = executor.submit(() -> singleFlight.execute("tx", () -> "never"));
+        waitForCoalesced(1);
+        release.countDown();
+
+        //then
+        for (Future<String> result : Arrays.asList(leader, waiter)) {
+            Exception exception = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            AccountException cause = (AccountException) exception.getCause();
+            assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, cause.getErrorCode());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void finishedLoadIsNotReused() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        singleFlight.execute("account", () -> "first" + loads.incrementAndGet());
+        String second = singleFlight.execute("account", () -> "second" + loads.incrementAndGet());
+
+        //then
+        //결과를 기억하지 않음 -> 끝난 뒤에 온 요청은 새로 읽음
+        assertEquals("second2", second);
+        assertEquals(0, coalesced());
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("singleflight.coalesced").tag("name", "test").counter().count();
+    }
+
+    private void waitForCoalesced(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalesced() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("singleflight.in-flight").gauge().value() < 1
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    void idsIncreaseEvenWhenSequenceIsExhausted() {
+        //given
+        //시계가 멈춰있으면 한 밀리초의 시퀀스(4096)를 다 쓴 뒤 다음 밀리초를 당겨씀
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(
+                5L, () -> SnowflakeTransactionIdGenerator.EPOCH + 1000L, () -> { });
+
+        //when
+        //then
+        String previous = generator.generate();
+        for (int i = 0; i < 10000; i++) {
+            String next = generator.generate();
+            assertTrue(next.compareTo(previous) > 0);
+            assertEquals(11, next.length());
+            previous = next;
+        }
+    }
+
+    @Test
+    void idsIncreaseWhenClockGoesBack() {
+        //given
+        AtomicLong now = new AtomicLong(SnowflakeTransactionIdGenerator.EPOCH + 5000L);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(
+                5L, now::get, () -> { });
+
+        //when
+        long first = generator.nextId();
+        now.addAndGet(-1000L);
+        long second = generator.nextId();
+
+        //then
+        assertTrue(second > first);
+    }
+
+    @Test
+    void idContainsNodeId() {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(
+                1023L, System::currentTimeMillis, () -> { });
+
+        //when
+        long id = generator.nextId();
+
+        //then
+        assertEquals(1023L, (id >>> SnowflakeTransactionIdGenerator.SEQUENCE_BITS)
+                & SnowflakeTransactionIdGenerator.MAX_NODE_ID);
+    }
+
+    @Test
+    void encodingKeepsNumericOrder() {
+        assertEquals("00000000000", SnowflakeTransactionIdGenerator.encode(0L));
+        assertTrue(SnowflakeTransactionIdGenerator.encode(61L)
+                .compareTo(SnowflakeTransactionIdGenerator.encode(62L)) < 0);
+        assertTrue(SnowflakeTransactionIdGenerator.encode(Long.MAX_VALUE - 1)
+                .compareTo(SnowflakeTransactionIdGenerator.encode(Long.MAX_VALUE)) < 0);
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws InterruptedException {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(
+                1L, System::currentTimeMillis, () -> { });
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+
+        //when
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    ids.add(generator.generate());
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //then
+        assertEquals(80000, ids.size());
+    }
+
+    @Test
+    void rejectInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(
+                1024L, System::currentTimeMillis, () -> { }));
+    }
+}
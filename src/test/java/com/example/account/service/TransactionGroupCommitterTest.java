@@ -0,0 +1,66 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransactionGroupCommitterTest {
+
+    private final LedgerBatchWriter ledgerBatchWriter = mock(LedgerBatchWriter.class);
+    private final TransactionGroupCommitter transactionGroupCommitter = new TransactionGroupCommitter(ledgerBatchWriter);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commitConcurrentRequestsAsOneGroup() throws InterruptedException {
+        //given
+        ReflectionTestUtils.setField(transactionGroupCommitter, "maxRows", 3);
+        ReflectionTestUtils.setField(transactionGroupCommitter, "maxWaitMs", 5000L);
+        List<Thread> threads = new ArrayList<>();
+        for (long accountId = 1; accountId <= 3; accountId++) {
+            LedgerEntry entry = LedgerEntry.builder()
+                    .transaction(new Transaction())
+                    .accountId(accountId)
+                    .newBalance(100L)
+                    .build();
+            threads.add(new Thread(() -> transactionGroupCommitter.commit(entry)));
+        }
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        //max-rows 가 차면 max-wait 를 기다리지 않고 바로 커밋
+        long start = System.currentTimeMillis();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //then
+        verify(ledgerBatchWriter, times(1)).write(captor.capture());
+        assertEquals(3, captor.getValue().size());
+        assertEquals(true, System.currentTimeMillis() - start < 5000L);
+    }
+
+    @Test
+    void commitAloneAfterMaxWait() {
+        //given
+        ReflectionTestUtils.setField(transactionGroupCommitter, "maxWaitMs", 10L);
+
+        //when
+        transactionGroupCommitter.commit(LedgerEntry.builder()
+                .transaction(new Transaction())
+                .accountId(1L)
+                .newBalance(100L)
+                .build());
+
+        //then
+        verify(ledgerBatchWriter, times(1)).write(anyList());
+    }
+}
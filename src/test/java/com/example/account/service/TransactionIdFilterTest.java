@@ -0,0 +1,125 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionIdFilterTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private RAtomicLong layerCount;
+
+    @Mock
+    private RBucket<String> readyFlag;
+
+    @Mock
+    private RBloomFilter<String> layer0;
+
+    @Mock
+    private RBloomFilter<String> layer1;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionIdFilter transactionIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionIdFilter = new TransactionIdFilter(redissonClient, transactionRepository, meterRegistry);
+    }
+
+    @Test
+    void notReadyNeverRejects() {
+        //given
+        givenLayers(1L);
+        given(readyFlag.isExists()).willReturn(false);
+        transactionIdFilter.init();
+
+        //when
+        boolean mightContain = transactionIdFilter.mightContain("unknown");
+
+        //then
+        //다시 만드는 중에는 필터를 보지 않음
+        assertTrue(mightContain);
+        verify(layer0, never()).contains(anyString());
+    }
+
+    @Test
+    void neverIssuedIdIsRejected() {
+        //given
+        givenLayers(1L);
+        given(readyFlag.isExists()).willReturn(true);
+        given(layer0.contains("unknown")).willReturn(false);
+        transactionIdFilter.init();
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionIdFilter.validateIssued("unknown"));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        assertEquals(1.0, meterRegistry.get("transaction.id-filter.rejected").counter().count());
+    }
+
+    @Test
+    void missReadsLayersAddedByOtherNode() {
+        //given
+        givenLayers(1L, 2L);
+        given(redissonClient.<String>getBloomFilter("TXBF:1", StringCodec.INSTANCE)).willReturn(layer1);
+        given(readyFlag.isExists()).willReturn(true);
+        given(layer0.contains("tx1")).willReturn(false);
+        given(layer1.contains("tx1")).willReturn(true);
+        transactionIdFilter.init();
+
+        //when
+        boolean mightContain = transactionIdFilter.mightContain("tx1");
+
+        //then
+        assertTrue(mightContain);
+        assertEquals(2.0, meterRegistry.get("transaction.id-filter.layers").gauge().value());
+    }
+
+    @Test
+    void layerProbabilitiesStayUnderConfiguredRate() {
+        //given
+        double total = 0;
+
+        //when
+        for (int index = 0; index < 30; index++) {
+            total += transactionIdFilter.probability(index);
+        }
+
+        //then
+        assertTrue(total <= 0.001);
+        assertEquals(2_000_000L, transactionIdFilter.capacity(1));
+    }
+
+    private void givenLayers(Long count, Long... nextCounts) {
+        given(redissonClient.getAtomicLong("TXBF:layers")).willReturn(layerCount);
+        given(redissonClient.<String>getBucket("TXBF:ready", StringCodec.INSTANCE)).willReturn(readyFlag);
+        given(redissonClient.<String>getBloomFilter("TXBF:0", StringCodec.INSTANCE)).willReturn(layer0);
+        given(layerCount.get()).willReturn(count, nextCounts);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionQueryCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionQueryCache transactionQueryCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionQueryCache = new TransactionQueryCache(meterRegistry);
+        transactionQueryCache.init();
+    }
+
+    @Test
+    void loadOnceThenHit() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            transactionQueryCache.get("tx1", id -> {
+                loads.incrementAndGet();
+                return Optional.of(transaction(id));
+            });
+        }
+
+        //then
+        assertEquals(1, loads.get());
+        assertEquals(2.0, meterRegistry.get("cache.gets")
+                .tag("cache", "transaction.query").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void unknownIdIsNegativeCached() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        Optional<TransactionDto> first = transactionQueryCache.get("unknown", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<TransactionDto> second = transactionQueryCache.get("unknown", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        //then
+        //두번째 조회는 DB 까지 가지 않음
+        assertFalse(first.isPresent());
+        assertFalse(second.isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void writeThroughReplacesNegativeEntry() {
+        //given
+        transactionQueryCache.get("tx1", id -> Optional.empty());
+
+        //when
+        //트랜잭션 밖이면 바로 넣음
+        transactionQueryCache.putAfterCommit(transaction("tx1"));
+        Optional<TransactionDto> cached = transactionQueryCache.get("tx1", id -> {
+            throw new IllegalStateException("should not load");
+        });
+
+        //then
+        assertTrue(cached.isPresent());
+        assertEquals("1000000012", cached.get().getAccountNumber());
+    }
+
+    private TransactionDto transaction(String transactionId) {
+        return TransactionDto.builder()
+                .accountNumber("1000000012")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .build();
+    }
+}
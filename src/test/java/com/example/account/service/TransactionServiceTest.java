@@ -4,12 +4,17 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.BulkBalance;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBalanceView;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.BalanceMutationMode;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
@@ -20,13 +25,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
-import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
 import static com.example.account.type.TransactionType.USE;
@@ -34,6 +40,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -45,11 +54,41 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private TransactionIdIssuer transactionIdIssuer;
+
     @Mock
     private AccountRepository accountRepository;
 
     @Mock
-    private AccountUserRepository accountUserRepository;
+    private AccountUserCache accountUserCache;
+
+    @Mock
+    private TransactionGroupCommitter transactionGroupCommitter;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private AccountSnapshotCache accountSnapshotCache;
+
+    @Mock
+    private TransactionQueryCache transactionQueryCache;
+
+    @Mock
+    private TransactionIdFilter transactionIdFilter;
+
+    @Mock
+    private AccountIndex accountIndex;
+
+    @Mock
+    private AccountInfoCache accountInfoCache;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -60,7 +99,7 @@ class TransactionServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(12L)
                 .name("pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         Account account = Account.builder()
@@ -100,11 +139,82 @@ class TransactionServiceTest {
         assertEquals(1000L, transactionDto.getAmount()); //사용금액
     }
 
+    @Test
+    void successUseBalance_GroupCommit() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("pobi").build();
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = Account.builder()
+                .id(7L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionGroupCommitter.isEnabled())
+                .willReturn(true);
+        ArgumentCaptor<LedgerEntry> captor = ArgumentCaptor.forClass(LedgerEntry.class);
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 200L);
+
+        //then
+        //엔티티는 바꾸지 않고 새 잔액만 그룹 커밋으로
+        verify(transactionGroupCommitter, times(1)).commit(captor.capture());
+        verify(transactionRepository, never()).save(any());
+        assertEquals(10000L, account.getBalance());
+        assertEquals(7L, captor.getValue().getAccountId());
+        assertEquals(9800L, captor.getValue().getNewBalance());
+        assertEquals(9800L, transactionDto.getBalanceSnapshot());
+        assertEquals(USE, transactionDto.getTransactionType());
+    }
+
+    @Test
+    @DisplayName("bulk 는 그룹 커밋이 켜져 있어도 앞 건의 차감을 보고 검증")
+    void applyBulk_GroupCommitEnabled_SameAccount() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("pobi").build();
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = Account.builder()
+                .id(7L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        //bulk 경로에서는 켜져 있는지 보지도 않음
+        lenient().when(transactionGroupCommitter.isEnabled())
+                .thenReturn(true);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        List<BulkBalance.Item> items = Arrays.asList(
+                new BulkBalance.Item(USE, new UseBalance.Request(12L, "1000000012", 600L), null),
+                new BulkBalance.Item(USE, new UseBalance.Request(12L, "1000000012", 600L), null));
+
+        //when
+        List<BulkBalance.Result> results = transactionService.applyBulk(items);
+
+        //then
+        //같은 영속성 컨텍스트의 엔티티를 바로 바꿈 -> 두번째 건은 400 으로 검증되어 실패
+        verify(transactionGroupCommitter, never()).commit(any());
+        assertNull(results.get(0).getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(400L, account.getBalance());
+    }
+
     @Test
     @DisplayName("해당 유저 없음 - 잔액 사용 실패")
     void useBalance_UserNotFound() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
@@ -121,7 +231,7 @@ class TransactionServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(12L)
                 .name("pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
@@ -142,7 +252,7 @@ class TransactionServiceTest {
                 .id(13L)
                 .name("Harry").build();
 
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -163,7 +273,7 @@ class TransactionServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .id(12L)
                 .name("Pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -185,7 +295,7 @@ class TransactionServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(12L)
                 .name("pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
         Account account = Account.builder()
@@ -205,42 +315,145 @@ class TransactionServiceTest {
     }
 
     @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction() {
+    @DisplayName("홀드된 금액을 빼면 잔액이 부족한 경우")
+    void exceedAmount_UseBalance_Held() {
         //given
         AccountUser user = AccountUser.builder()
                 .id(12L)
                 .name("pobi").build();
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(AccountStatus.IN_USE)
-                .balance(10000L)
+                .balance(1000L)
                 .accountNumber("1000000012").build();
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
-        given(transactionRepository.save(any()))
-                .willReturn(
-                        Transaction.builder()
-                                .account(account)
-                                .transactionType(USE)
-                                .transactionResultType(S)
-                                .transactionId("transactionId")
-                                .transactedAt(LocalDateTime.now())
-                                .amount(1000L)
-                                .balanceSnapshot(9000L)
-                                .build()
-                );
+        given(holdService.getHeldAmount("1000000012"))
+                .willReturn(900L);
 
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
         //when
-        transactionService.saveFailedUseTransaction( "1000000000", 200L);
+        //then
+        AccountException exception = assertThrows(AccountException.class, () -> transactionService.useBalance(12L, "1000000012", 200L));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    void successAuthorizeBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("pobi").build();
+        given(accountUserCache.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(holdService.isEnabled())
+                .willReturn(true);
+        given(holdService.getHeldAmount("1000000012"))
+                .willReturn(500L);
+        given(holdService.hold(account, 500L))
+                .willReturn(HoldDto.builder()
+                        .accountNumber("1000000012")
+                        .holdId("holdId")
+                        .amount(500L)
+                        .build());
+
+        //when
+        HoldDto holdDto = transactionService.authorizeBalance(12L, "1000000012", 500L);
 
         //then
-        //저장검증 verify captor가 감 가져감
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertEquals(200L,captor.getValue().getAmount()); //captor가 가져간 저장 벨류와 동일한지
-        assertEquals(10000L,captor.getValue().getBalanceSnapshot()); //captor가 가져간 저장 벨류와 동일한지
-        assertEquals(F, captor.getValue().getTransactionResultType());
+        assertEquals("holdId", holdDto.getHoldId());
+        //잔액과 거래는 capture 때 바뀜
+        assertEquals(1000L, account.getBalance());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void successTransfer() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("pobi").build();
+        Account from = Account.builder()
+                .id(1L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .id(2L)
+                .accountUser(AccountUser.builder().id(13L).name("crong").build())
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        given(accountUserCache.existsById(12L))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(from, to));
+        given(transactionIdGenerator.generate())
+                .willReturn("transferId");
+        given(transactionIdIssuer.issue())
+                .willReturn("outId", "inId");
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        TransferDto transferDto = transactionService.transfer(12L, "1000000012", "1000000013", 1000L);
+
+        //then
+        //출금/입금 거래 쌍을 한번에 저장
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        List<Transaction> transactions = captor.getValue();
+        assertEquals(2, transactions.size());
+        assertEquals(TransactionType.TRANSFER_OUT, transactions.get(0).getTransactionType());
+        assertEquals(9000L, transactions.get(0).getBalanceSnapshot());
+        assertEquals(TransactionType.TRANSFER_IN, transactions.get(1).getTransactionType());
+        assertEquals(1500L, transactions.get(1).getBalanceSnapshot());
+        assertEquals("transferId", transactions.get(0).getTransferId());
+        assertEquals("transferId", transactions.get(1).getTransferId());
+        assertEquals("outId", transferDto.getFromTransactionId());
+        assertEquals("inId", transferDto.getToTransactionId());
+    }
+
+    @Test
+    @DisplayName("이체 금액이 출금 계좌 잔액보다 큰 경우")
+    void exceedAmount_Transfer() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("pobi").build();
+        Account from = Account.builder()
+                .id(1L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(100L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .id(2L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .accountNumber("1000000013").build();
+        given(accountUserCache.existsById(12L))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Arrays.asList(from, to));
+
+        //when
+        //then
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transfer(12L, "1000000012", "1000000013", 1000L));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, never()).saveAll(anyList());
     }
 
     @Test
@@ -438,41 +651,51 @@ class TransactionServiceTest {
     @Test
     void successQueryTransaction() {
         //given
-        AccountUser user = AccountUser.builder()
-                .id(12L)
-                .name("pobi").build();
-        Account account = Account.builder()
-                .id(1L)
-                .accountUser(user)
-                .accountStatus(AccountStatus.IN_USE)
-                .balance(10000L)
-                .accountNumber("1000000012").build();
-        Transaction transaction = Transaction.builder()
-                .account(account)
-                .transactionType(USE)
-                .transactionResultType(S)
-                .transactionId("transactionId")
-                .transactedAt(LocalDateTime.now().minusYears(1))
-                .amount(CANCEL_AMOUNT)
-                .balanceSnapshot(9000L)
-                .build();
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        givenQueryCacheMiss();
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .accountNumber("1000000012")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now().minusYears(1))
+                        .amount(CANCEL_AMOUNT)
+                        .balanceSnapshot(9000L)
+                        .build()));
         //when
 
         TransactionDto transactionDto = transactionService.queryTransaction("trxId");
         //then
+        verify(transactionRepository, never()).findByTransactionId(anyString());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(S, transactionDto.getTransactionResultType());
         assertEquals(CANCEL_AMOUNT, transactionDto.getAmount());
         assertEquals("transactionId", transactionDto.getTransactionId());
     }
 
+    @Test
+    @DisplayName("발급된 적 없는 거래 id - DB 조회 없이 실패")
+    void queryTransaction_NeverIssued() {
+        //given
+        given(transactionQueryCache.get(anyString(), any()))
+                .willAnswer(invocation -> invocation.<Function<String, Optional<TransactionDto>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+        given(transactionIdFilter.mightContain(anyString()))
+                .willReturn(false);
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> transactionService.queryTransaction("unknown"));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        verify(transactionRepository, never()).findDtoByTransactionId(anyString());
+    }
+
     @Test
     @DisplayName("원거래 없음 - 거래 조회 실패")
     void queryTransaction_TransactionNotFound() {
         //given
-        given(transactionRepository.findByTransactionId(anyString()))
+        givenQueryCacheMiss();
+        given(transactionRepository.findDtoByTransactionId(anyString()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception = assertThrows(AccountException.class, () -> transactionService.queryTransaction( "transactionId"));
@@ -480,4 +703,87 @@ class TransactionServiceTest {
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("조건부 UPDATE 모드 - 잔액 사용 성공")
+    void successUseBalance_atomicUpdate() {
+        //given
+        ReflectionTestUtils.setField(transactionService, "balanceMutationMode", BalanceMutationMode.ATOMIC_UPDATE);
+        AccountBalanceView balanceView = mock(AccountBalanceView.class);
+        given(balanceView.getId()).willReturn(1L);
+        given(balanceView.getBalance()).willReturn(9800L);
+
+        given(accountUserCache.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.decreaseBalanceIfEnough(anyString(), anyLong(), anyLong(), any(), any()))
+                .willReturn(1);
+        given(accountRepository.findViewByAccountNumber(anyString()))
+                .willReturn(Optional.of(balanceView));
+        given(accountRepository.getById(anyLong()))
+                .willReturn(Account.builder().id(1L).build());
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000000", USE_AMOUNT);
+
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        assertEquals(USE_AMOUNT, captor.getValue().getAmount());
+        assertEquals(9800L, captor.getValue().getBalanceSnapshot());
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals(S, transactionDto.getTransactionResultType());
+    }
+
+    @Test
+    @DisplayName("조건부 UPDATE 모드 - 거래 금액이 잔액보다 큰 경우")
+    void exceedAmount_UseBalance_atomicUpdate() {
+        //given
+        ReflectionTestUtils.setField(transactionService, "balanceMutationMode", BalanceMutationMode.ATOMIC_UPDATE);
+        given(accountUserCache.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.decreaseBalanceIfEnough(anyString(), anyLong(), anyLong(), any(), any()))
+                .willReturn(0);
+        given(accountIndex.resolve(anyString()))
+                .willReturn(Optional.of(new AccountRef(1L, 12L, AccountStatus.IN_USE)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> transactionService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("조건부 UPDATE 모드 - 계좌 색인에서 해지된 계좌")
+    void alreadyUnregistered_UseBalance_atomicUpdate() {
+        //given
+        ReflectionTestUtils.setField(transactionService, "balanceMutationMode", BalanceMutationMode.ATOMIC_UPDATE);
+        given(accountUserCache.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.decreaseBalanceIfEnough(anyString(), anyLong(), anyLong(), any(), any()))
+                .willReturn(0);
+        given(accountIndex.resolve(anyString()))
+                .willReturn(Optional.of(new AccountRef(1L, 12L, AccountStatus.UNREGISTERED)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> transactionService.useBalance(12L, "1000000012", 1000L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    //캐시에 없고 거래 id 필터는 통과한 경우 -> loader(projection 쿼리)를 그대로 호출
+    private void givenQueryCacheMiss() {
+        given(transactionQueryCache.get(anyString(), any()))
+                .willAnswer(invocation -> invocation.<Function<String, Optional<TransactionDto>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+        given(transactionIdFilter.mightContain(anyString()))
+                .willReturn(true);
+    }
+}